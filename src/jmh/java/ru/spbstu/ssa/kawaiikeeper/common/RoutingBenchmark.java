@@ -0,0 +1,84 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoutingBenchmark {
+
+    private static final String[] COMMANDS = { "start", "category", "saved", "clear" };
+    private static final String[] CALLBACKS = {
+        "feed_next", "feed_save", "saved_page", "saved_remove",
+        "category_page", "category_update", "category_cancel", "clear_confirm"
+    };
+
+    private static final String BOT_USERNAME = "kawaii_keeper_bot";
+    private static final String SAVED_PAGE = "saved_page.42";
+
+    @Param({ "/start", "/category@kawaii_keeper_bot", "/unknown" })
+    private String command;
+
+    @Param({ "feed_save.f8a1c0d2-77e1-4b62-9d7a-31c1e3b2a9f0", "saved_page.42", "EMPTY" })
+    private String callback;
+
+    private Map< String, Integer > commandMap;
+    private Map< String, Integer > callbackMap;
+    private RouteTable< Integer > commandTable;
+    private RouteTable< Integer > callbackTable;
+
+    @Setup
+    public void setUp() {
+        commandMap = new HashMap<>();
+        for (int i = 0; i < COMMANDS.length; i++) {
+            commandMap.put(COMMANDS[i], i);
+        }
+        callbackMap = new HashMap<>();
+        for (int i = 0; i < CALLBACKS.length; i++) {
+            callbackMap.put(CALLBACKS[i], i);
+        }
+        commandTable = new RouteTable<>(commandMap);
+        callbackTable = new RouteTable<>(callbackMap);
+    }
+
+    // Both arms validate the command and its mention; they differ only in how the route is looked up
+    @Benchmark
+    public void commandWithSubstring(Blackhole blackhole) {
+        if (Commands.isCommand(command) && Commands.isAddressedTo(command, BOT_USERNAME)) {
+            blackhole.consume(commandMap.get(command.substring(Commands.nameStart(), Commands.nameEnd(command))));
+        }
+    }
+
+    @Benchmark
+    public void commandWithRouteTable(Blackhole blackhole) {
+        if (Commands.isCommand(command) && Commands.isAddressedTo(command, BOT_USERNAME)) {
+            blackhole.consume(commandTable.find(command, Commands.nameStart(), Commands.nameEnd(command)));
+        }
+    }
+
+    @Benchmark
+    public void callbackWithSubstring(Blackhole blackhole) {
+        blackhole.consume(callbackMap.get(Callbacks.identifierOf(callback)));
+    }
+
+    @Benchmark
+    public void callbackWithRouteTable(Blackhole blackhole) {
+        blackhole.consume(callbackTable.find(callback, 0, Callbacks.identifierEnd(callback)));
+    }
+
+    @Benchmark
+    public long payloadWithSubstring() {
+        return Long.parseLong(Callbacks.dataOf(SAVED_PAGE).orElseThrow());
+    }
+
+    @Benchmark
+    public long payloadWithOffsets() {
+        return Callbacks.longDataOf(SAVED_PAGE);
+    }
+
+}
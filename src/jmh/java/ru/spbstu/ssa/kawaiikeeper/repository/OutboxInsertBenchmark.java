@@ -0,0 +1,121 @@
+package ru.spbstu.ssa.kawaiikeeper.repository;
+
+import jakarta.persistence.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import ru.spbstu.ssa.kawaiikeeper.entity.OutboxMessage;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+// Persists outbox entities the way OutboxRepository.saveAll does for the replies of one update, with the
+// Hibernate settings of application.yaml. Needs a Postgres-compatible store in DB_URL / DB_USER / DB_PASSWORD;
+// tables are created in a separate schema. Scores are committed saveAll transactions per second.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OutboxInsertBenchmark {
+
+    private static final String SCHEMA = "outbox_bench";
+    private static final String OWNER = "3f2b7c1e-0d4a-4f6e-9b8c-5a1d2e3f4b6c";
+    private static final String PAYLOAD = "{\"chat_id\":123,\"text\":\"Изображение успешно сохранено :)\"}";
+
+    // identity: the mapping before V7, Hibernate inserts row by row to read each generated id back
+    // pooled-lo: the current mapping, rows of a transaction go out as one JDBC batch
+    // pooled-lo-rewritten: the same batch collapsed into a multi-row insert by reWriteBatchedInserts, as deployed
+    @Param({ "identity", "pooled-lo", "pooled-lo-rewritten" })
+    private String mode;
+
+    @Param({ "2", "10" })
+    private int rows;
+
+    private SessionFactory sessionFactory;
+    private long chatId;
+
+    @Setup
+    public void setUp() {
+        String url = System.getenv("DB_URL");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("DB_URL must point to a Postgres-compatible database");
+        }
+        sessionFactory = new Configuration()
+            .addAnnotatedClass(mode.equals("identity") ? IdentityOutboxMessage.class : OutboxMessage.class)
+            .setProperty("hibernate.connection.url", url)
+            .setProperty("hibernate.connection.username", System.getenv().getOrDefault("DB_USER", "postgres"))
+            .setProperty("hibernate.connection.password", System.getenv().getOrDefault("DB_PASSWORD", ""))
+            .setProperty("hibernate.connection.reWriteBatchedInserts", String.valueOf(mode.equals("pooled-lo-rewritten")))
+            .setProperty("hibernate.default_schema", SCHEMA)
+            .setProperty("hibernate.hbm2ddl.create_namespaces", "true")
+            .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+            .setProperty("hibernate.jdbc.batch_size", "50")
+            .setProperty("hibernate.order_inserts", "true")
+            .setProperty("hibernate.id.optimizer.pooled.preferred", "pooled-lo")
+            .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void saveAll() {
+        try (Session session = sessionFactory.openSession()) {
+            Transaction transaction = session.beginTransaction();
+            Instant leaseUntil = Instant.now().plusSeconds(60);
+            for (int i = 0; i < rows; i++) {
+                long chat = chatId++ % 1000;
+                session.persist(mode.equals("identity")
+                    ? new IdentityOutboxMessage(chat, PAYLOAD, leaseUntil)
+                    : new OutboxMessage(null, chat, "sendMessage", PAYLOAD, null, OWNER, leaseUntil));
+            }
+            transaction.commit();
+        }
+    }
+
+    // OutboxMessage as it was mapped with an identity column
+    @Entity
+    @Table(name = "outbox")
+    static class IdentityOutboxMessage {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(nullable = false, name = "chat_id")
+        private Long chatId;
+
+        @Column(nullable = false, length = 64)
+        private String method;
+
+        @Column(nullable = false, columnDefinition = "text")
+        private String payload;
+
+        @CreationTimestamp
+        @Column(nullable = false)
+        private Instant createdAt;
+
+        @Column(name = "lease_owner", length = 64)
+        private String leaseOwner;
+
+        @Column(nullable = false, name = "lease_until")
+        private Instant leaseUntil;
+
+        protected IdentityOutboxMessage() {
+        }
+
+        IdentityOutboxMessage(long chatId, String payload, Instant leaseUntil) {
+            this.chatId = chatId;
+            this.method = "sendMessage";
+            this.payload = payload;
+            this.leaseOwner = OWNER;
+            this.leaseUntil = leaseUntil;
+        }
+
+    }
+
+}
@@ -4,8 +4,11 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.config.DispatchConfig;
+import ru.spbstu.ssa.kawaiikeeper.config.SendingConfig;
 
-@EnableConfigurationProperties(ApiConfig.class)
+@EnableConfigurationProperties({ ApiConfig.class, DispatchConfig.class, SendingConfig.class, CacheConfig.class })
 @SpringBootApplication
 public class KawaiiKeeperApplication {
 
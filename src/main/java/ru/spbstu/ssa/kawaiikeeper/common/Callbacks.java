@@ -28,11 +28,37 @@ public final class Callbacks {
         return (index == -1) ? Optional.empty() : Optional.of(callback.substring(index + 1));
     }
 
+    // Payload readers work on offsets, like route lookup, so numeric payloads are parsed without a substring
+    public static int dataStart(String callback) {
+        int index = callback.indexOf(CALLBACK_DELIMITER);
+        if (index == -1) {
+            throw new IllegalArgumentException("Callback has no data: " + callback);
+        }
+        return index + 1;
+    }
+
+    public static long longDataOf(String callback) {
+        return Long.parseLong(callback, dataStart(callback), callback.length(), 10);
+    }
+
+    public static int intDataOf(String callback) {
+        return Integer.parseInt(callback, dataStart(callback), callback.length(), 10);
+    }
+
+    public static String stringDataOf(String callback) {
+        return callback.substring(dataStart(callback));
+    }
+
     public static String identifierOf(String callback) {
         int index = callback.indexOf(CALLBACK_DELIMITER);
         return (index == -1) ? callback : callback.substring(0, index);
     }
 
+    public static int identifierEnd(String callback) {
+        int index = callback.indexOf(CALLBACK_DELIMITER);
+        return (index == -1) ? callback.length() : index;
+    }
+
     public static String callback() {
         return EMPTY_DATA;
     }
@@ -0,0 +1,88 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.springframework.lang.NonNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalInt;
+
+public final class CategoryCatalog {
+
+    private static final int MAX_SEED_ATTEMPTS = 1 << 16;
+
+    private final String[] names;
+    private final List< String > nameList;
+    private final int[] slots;
+    private final int mask;
+    private final int seed;
+
+    public CategoryCatalog(@NonNull List< String > names) {
+        if (names.isEmpty() || names.size() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Category catalog size must be between 1 and " + Short.MAX_VALUE);
+        }
+        if (new HashSet<>(names).size() != names.size()) {
+            throw new IllegalArgumentException("Category catalog contains duplicate names: " + names);
+        }
+        this.names = names.toArray(new String[0]);
+        this.nameList = List.copyOf(names);
+
+        // search for a collision-free seed, growing the table if the load is too high to find one quickly
+        int tableSize = Integer.highestOneBit(names.size() * 2 - 1) << 1;
+        int[] table = new int[tableSize];
+        int candidate = 0;
+        while (!fill(table, candidate, tableSize - 1)) {
+            if (++candidate == MAX_SEED_ATTEMPTS) {
+                candidate = 0;
+                tableSize <<= 1;
+                table = new int[tableSize];
+            }
+        }
+        this.slots = table;
+        this.mask = tableSize - 1;
+        this.seed = candidate;
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public @NonNull List< String > names() {
+        return nameList;
+    }
+
+    public @NonNull String defaultName() {
+        return names[0];
+    }
+
+    public @NonNull String nameOf(int ordinal) {
+        return names[ordinal];
+    }
+
+    public @NonNull OptionalInt ordinalOf(@NonNull String name) {
+        int ordinal = slots[slotOf(name, seed, mask)];
+        return (ordinal >= 0 && names[ordinal].equals(name)) ? OptionalInt.of(ordinal) : OptionalInt.empty();
+    }
+
+    public boolean contains(@NonNull String name) {
+        return ordinalOf(name).isPresent();
+    }
+
+    private boolean fill(int[] table, int candidate, int tableMask) {
+        Arrays.fill(table, -1);
+        for (int ordinal = 0; ordinal < names.length; ordinal++) {
+            int slot = slotOf(names[ordinal], candidate, tableMask);
+            if (table[slot] >= 0) {
+                return false;
+            }
+            table[slot] = ordinal;
+        }
+        return true;
+    }
+
+    private static int slotOf(String name, int seed, int mask) {
+        int hash = (name.hashCode() ^ seed) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+}
@@ -0,0 +1,71 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openNanos) {
+        if (failureThreshold < 1 || openNanos <= 0) {
+            throw new IllegalArgumentException("Circuit breaker threshold and open duration must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+    }
+
+    public synchronized boolean tryAcquire(long nowNanos) {
+        if (state == State.OPEN && nowNanos - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInFlight) {
+                    yield false;
+                }
+                trialInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+        }
+    }
+
+    public synchronized void onFailure(long nowNanos) {
+        switch (state) {
+            case CLOSED -> {
+                if (++consecutiveFailures >= failureThreshold) {
+                    open(nowNanos);
+                }
+            }
+            case HALF_OPEN -> open(nowNanos);
+            case OPEN -> {
+            }
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open(long nowNanos) {
+        state = State.OPEN;
+        openedAt = nowNanos;
+        consecutiveFailures = 0;
+    }
+
+}
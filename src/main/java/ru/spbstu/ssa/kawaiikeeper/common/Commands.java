@@ -0,0 +1,63 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Optional;
+
+public final class Commands {
+
+    private static final char COMMAND_PREFIX = '/';
+    private static final char MENTION_PREFIX = '@';
+
+    private Commands() {
+    }
+
+    public static boolean isCommand(@Nullable String text) {
+        return text != null && text.length() > 1 && text.charAt(0) == COMMAND_PREFIX;
+    }
+
+    public static int nameStart() {
+        return 1;
+    }
+
+    public static int nameEnd(@NonNull String command) {
+        int index = nameStart();
+        while (index < command.length()) {
+            char current = command.charAt(index);
+            if (current == MENTION_PREFIX || Character.isWhitespace(current)) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    public static boolean isAddressedTo(@NonNull String command, @Nullable String botUsername) {
+        int nameEnd = nameEnd(command);
+        if (nameEnd == command.length() || command.charAt(nameEnd) != MENTION_PREFIX || botUsername == null) {
+            return true;
+        }
+        int mentionStart = nameEnd + 1;
+        int mentionLength = argumentsStart(command) - mentionStart;
+        return mentionLength == botUsername.length()
+            && command.regionMatches(true, mentionStart, botUsername, 0, mentionLength);
+    }
+
+    public static Optional< String > argumentsOf(@NonNull String command) {
+        int start = argumentsStart(command);
+        while (start < command.length() && Character.isWhitespace(command.charAt(start))) {
+            start++;
+        }
+        return (start < command.length()) ? Optional.of(command.substring(start).strip()) : Optional.empty();
+    }
+
+    private static int argumentsStart(String command) {
+        int index = nameEnd(command);
+        while (index < command.length() && !Character.isWhitespace(command.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+}
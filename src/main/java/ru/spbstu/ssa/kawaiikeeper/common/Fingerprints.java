@@ -0,0 +1,29 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.springframework.lang.NonNull;
+
+public final class Fingerprints {
+
+    private Fingerprints() {
+    }
+
+    public static long of(@NonNull String key) {
+        // FNV-1a over UTF-16 code units, finished with a murmur mix
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    public static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+}
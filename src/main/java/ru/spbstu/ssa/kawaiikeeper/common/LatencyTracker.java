@@ -0,0 +1,34 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import java.util.Arrays;
+
+public final class LatencyTracker {
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    public LatencyTracker(int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Latency window must be positive");
+        }
+        this.samples = new long[window];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    public synchronized long percentile(double quantile) {
+        if (size == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(quantile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+}
@@ -0,0 +1,69 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public final class RouteTable< H > {
+
+    private final Route< H >[] slots;
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public RouteTable(@NonNull Map< String, ? extends H > routes) {
+        int capacity = 2;
+        while (capacity < routes.size() * 2) {
+            capacity <<= 1;
+        }
+        this.slots = new Route[capacity];
+        this.mask = capacity - 1;
+        routes.forEach((name, handler) -> {
+            int slot = hash(name, 0, name.length()) & mask;
+            while (slots[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = new Route<>(name, handler);
+        });
+    }
+
+    public @Nullable Route< H > find(@NonNull String source) {
+        return find(source, 0, source.length());
+    }
+
+    public @Nullable Route< H > find(@NonNull String source, int from, int to) {
+        int length = to - from;
+        int slot = hash(source, from, to) & mask;
+        Route< H > route;
+        while ((route = slots[slot]) != null) {
+            if (route.name.length() == length && route.name.regionMatches(0, source, from, length)) {
+                return route;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public List< String > names() {
+        return Arrays.stream(slots)
+            .filter(Objects::nonNull)
+            .map(Route::name)
+            .toList();
+    }
+
+    private static int hash(String source, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    public record Route< H >(@NonNull String name, @NonNull H handler) {
+
+    }
+
+}
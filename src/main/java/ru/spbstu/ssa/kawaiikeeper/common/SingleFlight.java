@@ -0,0 +1,52 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.springframework.lang.NonNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+public final class SingleFlight< K, V > {
+
+    private final ConcurrentMap< K, CompletableFuture< V > > inFlight = new ConcurrentHashMap<>();
+
+    public V execute(@NonNull K key, @NonNull Supplier< V > call) {
+        CompletableFuture< V > own = new CompletableFuture<>();
+        CompletableFuture< V > existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = call.get();
+            own.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static < V > V await(CompletableFuture< V > future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+}
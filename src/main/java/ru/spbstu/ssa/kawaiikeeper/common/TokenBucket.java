@@ -0,0 +1,65 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import java.util.concurrent.TimeUnit;
+
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long updatedAt;
+    private long pausedUntil;
+
+    public TokenBucket(double tokensPerSecond, int capacity, long nowNanos) {
+        if (tokensPerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Token bucket rate and capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = capacity;
+        this.updatedAt = nowNanos;
+        this.pausedUntil = nowNanos;
+    }
+
+    public long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        if (nowNanos - pausedUntil < 0) {
+            return pausedUntil - nowNanos;
+        }
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    public boolean tryConsume(long nowNanos) {
+        if (nanosUntilAvailable(nowNanos) > 0) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    public void pauseFor(long pauseNanos, long nowNanos) {
+        refill(nowNanos);
+        tokens = 0;
+        if (nowNanos + pauseNanos - pausedUntil > 0) {
+            pausedUntil = nowNanos + pauseNanos;
+        }
+    }
+
+    public boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity && nowNanos - pausedUntil >= 0;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - updatedAt;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            updatedAt = nowNanos;
+        }
+    }
+
+}
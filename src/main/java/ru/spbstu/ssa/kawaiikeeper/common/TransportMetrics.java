@@ -0,0 +1,78 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.lang.NonNull;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+public class TransportMetrics implements ClientHttpRequestInterceptor {
+
+    private final AtomicLong inFlight = new AtomicLong();
+    private final AtomicLong peakInFlight = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder ioFailures = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+
+    @Override
+    public @NonNull ClientHttpResponse intercept(@NonNull HttpRequest request, @NonNull byte[] body,
+                                                 @NonNull ClientHttpRequestExecution execution) throws IOException {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().is5xxServerError()) {
+                serverErrors.increment();
+            }
+            return response;
+        } catch (IOException e) {
+            ioFailures.increment();
+            throw e;
+        } finally {
+            totalNanos.add(System.nanoTime() - start);
+            requests.increment();
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public long getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getServerErrorCount() {
+        return serverErrors.sum();
+    }
+
+    public long getIoFailureCount() {
+        return ioFailures.sum();
+    }
+
+    public @NonNull Duration getAverageLatency() {
+        long count = requests.sum();
+        return (count == 0) ? Duration.ZERO : Duration.ofNanos(totalNanos.sum() / count);
+    }
+
+    @PreDestroy
+    private void logStats() {
+        log.info("API transport stats: requests={}, serverErrors={}, ioFailures={}, peakInFlight={}, averageLatency={}",
+            getRequestCount(), getServerErrorCount(), getIoFailureCount(), getPeakInFlight(), getAverageLatency());
+    }
+
+}
@@ -1,12 +1,15 @@
 package ru.spbstu.ssa.kawaiikeeper.config;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.List;
 
 @Getter
@@ -25,4 +28,23 @@ public class ApiConfig {
     @NotEmpty(message = "At least one API category must be specified")
     private List< String > apiCategories;
 
+    @NotNull(message = "API connect timeout must be specified")
+    private Duration connectTimeout = Duration.ofSeconds(3);
+
+    @NotNull(message = "API read timeout must be specified")
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    private boolean gzipEnabled = true;
+
+    @Min(value = 1, message = "Circuit breaker threshold must be at least 1")
+    private int breakerFailureThreshold = 5;
+
+    @NotNull(message = "Circuit breaker open duration must be specified")
+    private Duration breakerOpenDuration = Duration.ofSeconds(30);
+
+    private boolean hedgeEnabled = false;
+
+    @NotNull(message = "Hedge minimum delay must be specified")
+    private Duration hedgeMinDelay = Duration.ofMillis(100);
+
 }
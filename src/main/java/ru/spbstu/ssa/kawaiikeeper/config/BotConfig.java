@@ -5,7 +5,13 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+import ru.spbstu.ssa.kawaiikeeper.common.GzipResponseInterceptor;
+import ru.spbstu.ssa.kawaiikeeper.common.TransportMetrics;
+
+import java.net.http.HttpClient;
 
 @RequiredArgsConstructor
 @Configuration
@@ -14,11 +20,34 @@ public class BotConfig {
     private final ApiConfig apiConfig;
 
     @Bean
-    public RestClient restClient() {
-        return RestClient.builder()
-            .baseUrl(apiConfig.getApiBaseUrl())
-            .defaultHeader(HttpHeaders.USER_AGENT, "Kawaii-Keeper/0.1")
+    public CategoryCatalog categoryCatalog() {
+        return new CategoryCatalog(apiConfig.getApiCategories());
+    }
+
+    @Bean
+    public TransportMetrics transportMetrics() {
+        return new TransportMetrics();
+    }
+
+    @Bean
+    public RestClient restClient(TransportMetrics transportMetrics) {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(apiConfig.getConnectTimeout())
+            .followRedirects(HttpClient.Redirect.NORMAL)
             .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(apiConfig.getReadTimeout());
+
+        RestClient.Builder builder = RestClient.builder()
+            .baseUrl(apiConfig.getApiBaseUrl())
+            .requestFactory(requestFactory)
+            .requestInterceptor(transportMetrics)
+            .defaultHeader(HttpHeaders.USER_AGENT, "Kawaii-Keeper/0.1");
+        if (apiConfig.isGzipEnabled()) {
+            builder.requestInterceptor(new GzipResponseInterceptor());
+        }
+        return builder.build();
     }
 
     @Bean
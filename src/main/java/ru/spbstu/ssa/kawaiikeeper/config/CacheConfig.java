@@ -0,0 +1,80 @@
+package ru.spbstu.ssa.kawaiikeeper.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@Configuration
+@ConfigurationProperties("cache-config")
+public class CacheConfig {
+
+    @Min(value = 1, message = "Prefetch size must be at least 1")
+    private int prefetchSize = 3;
+
+    @Min(value = 1, message = "Prefetch must keep at least one user")
+    private long prefetchMaxUsers = 10_000;
+
+    @NotNull(message = "Prefetch idle timeout must be specified")
+    private Duration prefetchIdleTimeout = Duration.ofMinutes(10);
+
+    @Min(value = 1, message = "At least one prefetch worker must be specified")
+    private int prefetchWorkerCount = 4;
+
+    @Min(value = 1, message = "Prefetch batch size must be at least 1")
+    @Max(value = 48, message = "Prefetch batch size must not exceed the API limit of 48")
+    private int prefetchMaxBatchSize = 16;
+
+    @NotNull(message = "Prefetch batch target interval must be specified")
+    private Duration prefetchBatchTargetInterval = Duration.ofSeconds(30);
+
+    @Min(value = 1, message = "Category image pool must keep at least one image")
+    private int poolCapacity = 1024;
+
+    @NotBlank(message = "Seen filter path must be specified")
+    private String seenFilterPath = "data/seen-filter.bin";
+
+    @Min(value = 1, message = "Seen filter must have at least one user slot")
+    private int seenFilterUsers = 16_384;
+
+    @Min(value = 64, message = "Seen filter must have at least 64 bits per generation")
+    private int seenFilterBits = 8_192;
+
+    @Min(value = 1, message = "Seen filter generation must hold at least one image")
+    private int seenFilterRotation = 512;
+
+    @Min(value = 1, message = "Image cache must keep at least one image")
+    private long imageMaxSize = 100_000;
+
+    @NotNull(message = "Image cache TTL must be specified")
+    private Duration imageTtl = Duration.ofHours(1);
+
+    @Min(value = 1, message = "At least one fallback image per category must be kept")
+    private int fallbackImagesPerCategory = 64;
+
+    @Min(value = 1, message = "File id cache must keep at least one entry")
+    private long fileIdMaxSize = 100_000;
+
+    @Min(value = 1, message = "Category cache must keep at least one user")
+    private long categoryMaxUsers = 100_000;
+
+    @NotNull(message = "Category cache idle timeout must be specified")
+    private Duration categoryIdleTimeout = Duration.ofHours(1);
+
+    @Min(value = 1, message = "Recent saves cache must keep at least one entry")
+    private long recentSaveMaxSize = 10_000;
+
+    @NotNull(message = "Recent saves TTL must be specified")
+    private Duration recentSaveTtl = Duration.ofSeconds(30);
+
+}
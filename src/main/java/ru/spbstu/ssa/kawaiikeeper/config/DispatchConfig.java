@@ -0,0 +1,43 @@
+package ru.spbstu.ssa.kawaiikeeper.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+@Getter
+@Setter
+@Validated
+@Configuration
+@ConfigurationProperties("dispatch-config")
+public class DispatchConfig {
+
+    @Min(value = 1, message = "At least one update worker must be specified")
+    private int workerCount = 16;
+
+    @NotNull(message = "Updates mode must be specified")
+    private UpdatesMode mode = UpdatesMode.POLLING;
+
+    private String webhookUrl;
+
+    private String webhookSecret;
+
+    @Min(value = 0, message = "Webhook port must not be negative")
+    private int webhookPort = 8080;
+
+    @NotEmpty(message = "Webhook path must not be empty")
+    private String webhookPath = "/telegram/webhook";
+
+    @Min(value = 1, message = "Webhook must allow at least one connection")
+    private int webhookMaxConnections = 40;
+
+    public enum UpdatesMode {
+        POLLING,
+        WEBHOOK
+    }
+
+}
@@ -0,0 +1,57 @@
+package ru.spbstu.ssa.kawaiikeeper.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Validated
+@Configuration
+@ConfigurationProperties("sending-config")
+public class SendingConfig {
+
+    @Positive(message = "Global send rate must be positive")
+    private double globalRate = 30;
+
+    @Min(value = 1, message = "Global burst must be at least 1")
+    private int globalBurst = 30;
+
+    @Positive(message = "Per-chat send rate must be positive")
+    private double chatRate = 1;
+
+    @Min(value = 1, message = "Per-chat burst must be at least 1")
+    private int chatBurst = 3;
+
+    @Min(value = 0, message = "Flood retry count must not be negative")
+    private int maxFloodRetries = 5;
+
+    @Min(value = 1, message = "At least one outbox worker must be specified")
+    private int outboxWorkerCount = 4;
+
+    @Min(value = 1, message = "Outbox batch size must be at least 1")
+    private int outboxBatchSize = 20;
+
+    @Min(value = 1, message = "Outbox must make at least one delivery attempt")
+    private int outboxMaxAttempts = 5;
+
+    @NotNull(message = "Outbox retry backoff must be specified")
+    private Duration outboxRetryBackoff = Duration.ofSeconds(1);
+
+    @NotNull(message = "Outbox lease duration must be specified")
+    private Duration outboxLeaseDuration = Duration.ofMinutes(1);
+
+    @NotNull(message = "Outbox poll interval must be specified")
+    private Duration outboxPollInterval = Duration.ofSeconds(10);
+
+    @NotNull(message = "Outbox max age must be specified")
+    private Duration outboxMaxAge = Duration.ofMinutes(5);
+
+}
@@ -1,6 +1,7 @@
 package ru.spbstu.ssa.kawaiikeeper.dto;
 
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 
 import java.time.Instant;
 
@@ -21,7 +22,10 @@ public record SavedDto(
     String categoryName,
 
     @Nonnull
-    Instant createdAt
+    Instant createdAt,
+
+    @Nullable
+    String fileId
 ) {
 
 }
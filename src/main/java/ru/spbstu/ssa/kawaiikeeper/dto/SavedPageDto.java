@@ -0,0 +1,17 @@
+package ru.spbstu.ssa.kawaiikeeper.dto;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+public record SavedPageDto(
+    @Nonnull
+    SavedDto saved,
+
+    @Nullable
+    Long prevId,
+
+    @Nullable
+    Long nextId
+) {
+
+}
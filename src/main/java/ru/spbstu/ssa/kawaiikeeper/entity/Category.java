@@ -1,6 +1,8 @@
 package ru.spbstu.ssa.kawaiikeeper.entity;
 
 import jakarta.annotation.Nonnull;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
@@ -18,6 +20,8 @@ public final class Category {
     private Long userId;
 
     @Nonnull
+    @Convert(converter = CategoryOrdinalConverter.class)
+    @Column(nullable = false, name = "category_ordinal")
     private String categoryName;
 
 }
@@ -0,0 +1,39 @@
+package ru.spbstu.ssa.kawaiikeeper.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+
+@Slf4j
+@RequiredArgsConstructor
+@Converter
+public class CategoryOrdinalConverter implements AttributeConverter< String, Short > {
+
+    private final CategoryCatalog categoryCatalog;
+
+    @Override
+    public Short convertToDatabaseColumn(String categoryName) {
+        if (categoryName == null) {
+            return null;
+        }
+        int ordinal = categoryCatalog.ordinalOf(categoryName)
+            .orElseThrow(() -> new IllegalArgumentException("Category " + categoryName + " not found"));
+        return (short) ordinal;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short ordinal) {
+        if (ordinal == null) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= categoryCatalog.size()) {
+            // the startup check rejects such rows, this only keeps a row written afterwards readable
+            log.warn("Category ordinal {} is outside the catalog, using the default category", ordinal);
+            return categoryCatalog.defaultName();
+        }
+        return categoryCatalog.nameOf(ordinal);
+    }
+
+}
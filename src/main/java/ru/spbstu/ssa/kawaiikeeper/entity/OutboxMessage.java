@@ -0,0 +1,42 @@
+package ru.spbstu.ssa.kawaiikeeper.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "outbox")
+public final class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_seq")
+    @SequenceGenerator(name = "outbox_id_seq", sequenceName = "outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, name = "chat_id")
+    private Long chatId;
+
+    @Column(nullable = false, length = 64)
+    private String method;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @CreationTimestamp
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(nullable = false, name = "lease_until")
+    private Instant leaseUntil;
+
+}
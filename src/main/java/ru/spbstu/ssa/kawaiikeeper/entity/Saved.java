@@ -16,6 +16,9 @@ import java.time.Instant;
 @Entity
 @Table(uniqueConstraints = {
     @UniqueConstraint(columnNames = { "user_id", "external_id" }, name = "uk_user_external")
+}, indexes = {
+    @Index(columnList = "external_id", name = "ix_saved_external_id"),
+    @Index(columnList = "user_id, created_at, id", name = "ix_saved_user_created_id")
 })
 public final class Saved {
 
@@ -39,4 +42,7 @@ public final class Saved {
     @Column(nullable = false)
     private Instant createdAt;
 
+    @Column(name = "file_id")
+    private String fileId;
+
 }
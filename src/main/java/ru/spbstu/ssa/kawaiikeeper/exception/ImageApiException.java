@@ -0,0 +1,27 @@
+package ru.spbstu.ssa.kawaiikeeper.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.lang.Nullable;
+
+public class ImageApiException extends RuntimeException {
+
+    @Getter
+    @Nullable
+    private final HttpStatusCode statusCode;
+
+    public ImageApiException(String message) {
+        super(message);
+        this.statusCode = null;
+    }
+
+    public ImageApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = null;
+    }
+
+    public ImageApiException(HttpStatusCode statusCode) {
+        super("HTTP error: " + statusCode);
+        this.statusCode = statusCode;
+    }
+}
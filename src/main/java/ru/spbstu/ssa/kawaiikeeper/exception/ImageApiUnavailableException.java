@@ -0,0 +1,8 @@
+package ru.spbstu.ssa.kawaiikeeper.exception;
+
+public class ImageApiUnavailableException extends ImageApiException {
+
+    public ImageApiUnavailableException(String message) {
+        super(message);
+    }
+}
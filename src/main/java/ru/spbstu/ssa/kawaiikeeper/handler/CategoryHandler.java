@@ -9,7 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import ru.spbstu.ssa.kawaiikeeper.common.Callbacks;
-import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
 import ru.spbstu.ssa.kawaiikeeper.service.CategoryService;
 
@@ -17,6 +17,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 @Slf4j
 @Service
@@ -32,11 +33,16 @@ public class CategoryHandler implements ChatEventHandler {
     private final CategoryService categoryService;
     private final List< String > availableCategories;
     private final int pageCount;
+    // the catalog is static, so every page is built once and shared by all requests
+    private final List< CategoryPage > pages;
 
-    public CategoryHandler(CategoryService categoryService, ApiConfig apiConfig) {
+    public CategoryHandler(CategoryService categoryService, CategoryCatalog categoryCatalog) {
         this.categoryService = categoryService;
-        this.availableCategories = apiConfig.getApiCategories();
+        this.availableCategories = categoryCatalog.names();
         this.pageCount = (availableCategories.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+        this.pages = IntStream.range(0, pageCount)
+            .mapToObj(page -> new CategoryPage(formCategoryPageText(page), formCategoryPageKeyboard(page)))
+            .toList();
     }
 
     @Override
@@ -58,21 +64,19 @@ public class CategoryHandler implements ChatEventHandler {
     public List< SendMessage > handleCategory(@NonNull Message message) {
         long chatId = message.chat().id();
 
-        String text = formCategoryPageText(0);
-        InlineKeyboardMarkup keyboard = formCategoryPageKeyboard(0);
+        CategoryPage firstPage = pages.get(0);
 
-        return List.of(new SendMessage(chatId, text).replyMarkup(keyboard));
+        return List.of(new SendMessage(chatId, firstPage.text()).replyMarkup(firstPage.keyboard()));
     }
 
     public List< EditMessageText > handleSetPage(@NonNull CallbackQuery query) {
         long chatId = query.maybeInaccessibleMessage().chat().id();
         int messageId = query.maybeInaccessibleMessage().messageId();
-        int page = Integer.parseInt((Callbacks.dataOf(query.data()).orElseThrow()));
+        int page = Callbacks.intDataOf(query.data());
 
-        String text = formCategoryPageText(page);
-        InlineKeyboardMarkup keyboard = formCategoryPageKeyboard(page);
+        CategoryPage categoryPage = pages.get(page);
 
-        return List.of(new EditMessageText(chatId, messageId, text).replyMarkup(keyboard));
+        return List.of(new EditMessageText(chatId, messageId, categoryPage.text()).replyMarkup(categoryPage.keyboard()));
     }
 
     public List< AnswerCallbackQuery > handleUpdateCategory(@NonNull CallbackQuery query) {
@@ -80,7 +84,7 @@ public class CategoryHandler implements ChatEventHandler {
         long userId = query.from().id();
 
         try {
-            String updateCategory = Callbacks.dataOf(query.data()).orElseThrow();
+            String updateCategory = Callbacks.stringDataOf(query.data());
             categoryService.updateCategory(userId, updateCategory);
 
             log.info("Update category to \"{}\" for userId={}", updateCategory, userId);
@@ -136,4 +140,8 @@ public class CategoryHandler implements ChatEventHandler {
         return keyboard;
     }
 
+    private record CategoryPage(String text, InlineKeyboardMarkup keyboard) {
+
+    }
+
 }
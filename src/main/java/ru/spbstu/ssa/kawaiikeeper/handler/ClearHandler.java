@@ -65,9 +65,13 @@ public class ClearHandler implements ChatEventHandler {
         long chatId = query.maybeInaccessibleMessage().chat().id();
         long userId = query.from().id();
 
-        savedService.clearImages(userId);
+        long removed = savedService.clearImages(userId);
+        if (removed == 0) {
+            return List.of(new SendMessage(chatId, "Ваша коллекция и так пуста..."));
+        }
 
-        log.info("Clear collection for userId={}", userId);
-        return List.of(new SendMessage(chatId, "Ваша коллекция была очищена. Надеемся вы найдете что-то более стоящее!"));
+        log.info("Clear collection ({} images) for userId={}", removed, userId);
+        return List.of(new SendMessage(chatId,
+            "Ваша коллекция была очищена (удалено изображений: " + removed + "). Надеемся вы найдете что-то более стоящее!"));
     }
 }
@@ -16,11 +16,13 @@ import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
 import ru.spbstu.ssa.kawaiikeeper.entity.Category;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
 import ru.spbstu.ssa.kawaiikeeper.service.CategoryService;
-import ru.spbstu.ssa.kawaiikeeper.service.ImageService;
+import ru.spbstu.ssa.kawaiikeeper.service.FeedPrefetcher;
+import ru.spbstu.ssa.kawaiikeeper.service.FileIdService;
 import ru.spbstu.ssa.kawaiikeeper.service.SavedService;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Slf4j
@@ -33,8 +35,9 @@ public class FeedHandler implements ChatEventHandler {
     private static final String SAVE_CALLBACK = "feed_save";
 
     private final CategoryService categoryService;
-    private final ImageService imageService;
+    private final FeedPrefetcher feedPrefetcher;
     private final SavedService savedService;
+    private final FileIdService fileIdService;
 
     @Override
     public @NotNull Map< String, Function< ? super Message, List< ? extends BaseRequest< ?, ? > > > > commandHandlers() {
@@ -55,7 +58,8 @@ public class FeedHandler implements ChatEventHandler {
         long chatId = message.chat().id();
         long userId = message.from().id();
 
-        if (!categoryService.hasCategory(userId)) {
+        Optional< Category > existing = categoryService.findCategory(userId);
+        if (existing.isEmpty()) {
             log.info("New user: userId={}", userId);
             Category userCategory = categoryService.setDefaultCategory(userId);
             return List.of(
@@ -65,10 +69,7 @@ public class FeedHandler implements ChatEventHandler {
         }
 
         log.info("Start feed for userId={}", userId);
-        Category userCategory = categoryService
-            .findCategory(userId)
-            .orElseThrow();
-        return List.of(getFeedMessage(chatId, userCategory));
+        return List.of(getFeedMessage(chatId, existing.get()));
     }
 
     public List< ? extends BaseRequest< ?, ? > > handleNext(@NonNull CallbackQuery query) {
@@ -84,7 +85,8 @@ public class FeedHandler implements ChatEventHandler {
         InlineKeyboardMarkup keyboard = formFeedImageKeyboard(image);
         String caption = formFeedImageCaption(userCategory, image);
 
-        var editImageReq = new EditMessageMedia(chatId, messageId, new InputMediaPhoto(image.imageUrl()));
+        var editImageReq = fileIdService.photoRequest(image.externalId(), image.imageUrl(), null,
+            photo -> new EditMessageMedia(chatId, messageId, new InputMediaPhoto(photo)));
         var editCaptionReq = new EditMessageCaption(chatId, messageId)
             .caption(caption)
             .replyMarkup(keyboard);
@@ -100,17 +102,24 @@ public class FeedHandler implements ChatEventHandler {
         long chatId = query.maybeInaccessibleMessage().chat().id();
         int messageId = query.maybeInaccessibleMessage().messageId();
 
-        String saveId = Callbacks.dataOf(query.data()).orElseThrow();
+        String saveId = Callbacks.stringDataOf(query.data());
+        if (query.maybeInaccessibleMessage() instanceof Message shown) {
+            fileIdService.rememberFrom(saveId, shown);
+        }
+        SavedService.SaveResult result;
         try {
-            savedService.saveImage(userId, saveId);
+            result = savedService.saveImage(userId, saveId);
         } catch (Exception e) {
             throw new ChatActionException(chatId, "Не удалось сохранить", e);
         }
 
-        log.info("Saved {} for userId={}", saveId, userId);
+        log.info("Save {} for userId={}: {}", saveId, userId, result);
+        String answer = (result == SavedService.SaveResult.SAVED)
+            ? "Изображение успешно сохранено :)"
+            : "Изображение уже есть в вашей коллекции";
         return List.of(
             new AnswerCallbackQuery(query.id())
-                .text("Изображение успешно сохранено :)"),
+                .text(answer),
             new EditMessageReplyMarkup(chatId, messageId).replyMarkup(formSavedKeyboard())
         );
     }
@@ -119,14 +128,15 @@ public class FeedHandler implements ChatEventHandler {
         ImageDto image = getFeedImage(chatId, category);
         String caption = formFeedImageCaption(category, image);
         InlineKeyboardMarkup keyboard = formFeedImageKeyboard(image);
-        return new SendPhoto(chatId, image.imageUrl())
-            .caption(caption)
-            .replyMarkup(keyboard);
+        return fileIdService.photoRequest(image.externalId(), image.imageUrl(), null,
+            photo -> new SendPhoto(chatId, photo)
+                .caption(caption)
+                .replyMarkup(keyboard));
     }
 
     private ImageDto getFeedImage(long chatId, Category category) {
         try {
-            return imageService.pollNext(category);
+            return feedPrefetcher.next(category);
         } catch (Exception e) {
             throw new ChatActionException(chatId, "Не удалось получить фото");
         }
@@ -6,22 +6,23 @@ import com.pengrad.telegrambot.model.request.InlineKeyboardButton;
 import com.pengrad.telegrambot.model.request.InlineKeyboardMarkup;
 import com.pengrad.telegrambot.model.request.InputMediaPhoto;
 import com.pengrad.telegrambot.request.*;
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import ru.spbstu.ssa.kawaiikeeper.common.Callbacks;
 import ru.spbstu.ssa.kawaiikeeper.dto.SavedDto;
+import ru.spbstu.ssa.kawaiikeeper.dto.SavedPageDto;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
+import ru.spbstu.ssa.kawaiikeeper.service.FileIdService;
 import ru.spbstu.ssa.kawaiikeeper.service.SavedService;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 @Slf4j
@@ -34,6 +35,7 @@ public class SavedHandler implements ChatEventHandler {
     private static final String REMOVE_SAVED_CALLBACK = "saved_remove";
 
     private final SavedService savedService;
+    private final FileIdService fileIdService;
 
     @Override
     public @NotNull Map< String, Function< ? super Message, List< ? extends BaseRequest< ?, ? > > > > commandHandlers() {
@@ -54,19 +56,19 @@ public class SavedHandler implements ChatEventHandler {
         long chatId = message.chat().id();
         long userId = message.from().id();
 
-        if (!savedService.hasImages(userId)) {
+        Optional< SavedPageDto > firstPage = savedService.findFirstPage(userId);
+        if (firstPage.isEmpty()) {
             log.info("Not found saved for userId={}", userId);
             return List.of(getNotFoundMessage(chatId));
         }
 
-        List< SavedDto > userSaved = savedService.findOrderedImages(userId);
-        SavedPageInfo pageInfo = new SavedPageInfo(userSaved, 0);
-        InlineKeyboardMarkup keyboard = formSavedImageKeyboard(pageInfo);
+        SavedPageDto page = firstPage.get();
+        InlineKeyboardMarkup keyboard = formSavedImageKeyboard(page);
 
         log.info("Start saved for userId={}", userId);
         return List.of(
-            new SendPhoto(chatId, pageInfo.saved.imageUrl())
-                .replyMarkup(keyboard)
+            fileIdService.photoRequest(page.saved().externalId(), page.saved().imageUrl(), page.saved().fileId(),
+                photo -> new SendPhoto(chatId, photo).replyMarkup(keyboard))
         );
     }
 
@@ -75,21 +77,20 @@ public class SavedHandler implements ChatEventHandler {
         long userId = query.from().id();
         int messageId = query.maybeInaccessibleMessage().messageId();
 
-        SavedPageInfo pageInfo;
+        SavedPageDto page;
         try {
-            List< SavedDto > userSaved = savedService.findOrderedImages(userId);
-            pageInfo = new SavedPageInfo(userSaved, Integer.parseInt(Callbacks.dataOf(query.data()).orElseThrow()));
+            long savedId = Callbacks.longDataOf(query.data());
+            page = savedService.findPage(userId, savedId)
+                .or(() -> savedService.findFirstPage(userId))
+                .orElseThrow();
         } catch (Exception e) {
             throw new ChatActionException(chatId, "Не удалось загрузить страницу", e);
         }
 
-        InlineKeyboardMarkup keyboard = formSavedImageKeyboard(pageInfo);
+        InlineKeyboardMarkup keyboard = formSavedImageKeyboard(page);
 
-        log.info("Set page {} for userId={}", pageInfo.currPage, userId);
-        return List.of(
-            new EditMessageMedia(chatId, messageId, new InputMediaPhoto(pageInfo.saved.imageUrl()))
-                .replyMarkup(keyboard)
-        );
+        log.info("Set page (savedId={}) for userId={}", page.saved().id(), userId);
+        return List.of(editSavedMedia(chatId, messageId, page.saved(), keyboard));
     }
 
     public List< ? extends BaseRequest< ?, ? > > handleRemove(@NonNull CallbackQuery query) {
@@ -97,57 +98,49 @@ public class SavedHandler implements ChatEventHandler {
         long userId = query.from().id();
         int messageId = query.maybeInaccessibleMessage().messageId();
 
-        List< SavedDto > remaining;
-        int removedPage;
+        Optional< SavedPageDto > shownPage;
         try {
-            List< SavedDto > userSaved = savedService.findOrderedImages(userId);
-            removedPage = Integer.parseInt(Callbacks.dataOf(query.data()).orElseThrow());
-            SavedDto removed = userSaved.get(removedPage);
-            remaining = userSaved.stream()
-                .filter(saved -> !saved.id().equals(removed.id()))
-                .toList();
-            savedService.removeImage(removed.id());
-            log.info("Remove saved (id={}) for userId={}", removed.id(), userId);
+            long removedId = Callbacks.longDataOf(query.data());
+            shownPage = savedService.removeImage(userId, removedId);
+            log.info("Remove saved (id={}) for userId={}", removedId, userId);
         } catch (Exception e) {
             throw new ChatActionException(chatId, "Не удалось удалить изображение", e);
         }
 
         var requests = new LinkedList< BaseRequest< ?, ? > >();
         requests.add(new AnswerCallbackQuery(query.id()).text("Изображение успешно убрано из коллекции"));
-        if (remaining.isEmpty()) {
+        if (shownPage.isEmpty()) {
             requests.add(new DeleteMessage(chatId, messageId));
             requests.add(getNotFoundMessage(chatId));
         } else {
-            SavedPageInfo pageInfo = getRemovedPage(remaining, removedPage);
-            InlineKeyboardMarkup keyboard = formSavedImageKeyboard(pageInfo);
-            requests.add(new EditMessageMedia(chatId, messageId, new InputMediaPhoto(pageInfo.saved.imageUrl()))
-                .replyMarkup(keyboard));
+            InlineKeyboardMarkup keyboard = formSavedImageKeyboard(shownPage.get());
+            requests.add(editSavedMedia(chatId, messageId, shownPage.get().saved(), keyboard));
         }
 
         return requests;
     }
 
-    private SavedPageInfo getRemovedPage(List< SavedDto > remaining, int removedPage) {
-        int currentPage = (remaining.size() == removedPage) ? (removedPage - 1) : removedPage;
-        return new SavedPageInfo(remaining, currentPage);
+    private EditMessageMedia editSavedMedia(long chatId, int messageId, SavedDto saved, InlineKeyboardMarkup keyboard) {
+        return fileIdService.photoRequest(saved.externalId(), saved.imageUrl(), saved.fileId(),
+            photo -> new EditMessageMedia(chatId, messageId, new InputMediaPhoto(photo)).replyMarkup(keyboard));
     }
 
-    private InlineKeyboardMarkup formSavedImageKeyboard(SavedPageInfo pageInfo) {
+    private InlineKeyboardMarkup formSavedImageKeyboard(SavedPageDto page) {
         var keyboard = new InlineKeyboardMarkup();
 
         List< InlineKeyboardButton > controlRow = new ArrayList<>();
-        if (pageInfo.prevPage != null) {
+        if (page.prevId() != null) {
             controlRow.add(new InlineKeyboardButton(UnicodeEmoji.LEFT_ARROW.toString())
-                .callbackData(Callbacks.callback(SET_PAGE_CALLBACK, pageInfo.prevPage.toString())));
+                .callbackData(Callbacks.callback(SET_PAGE_CALLBACK, page.prevId().toString())));
         }
-        if (pageInfo.nextPage != null) {
+        if (page.nextId() != null) {
             controlRow.add(new InlineKeyboardButton(UnicodeEmoji.RIGHT_ARROW.toString())
-                .callbackData(Callbacks.callback(SET_PAGE_CALLBACK, pageInfo.nextPage.toString())));
+                .callbackData(Callbacks.callback(SET_PAGE_CALLBACK, page.nextId().toString())));
         }
         keyboard.addRow(controlRow.toArray(new InlineKeyboardButton[0]));
 
         keyboard.addRow(new InlineKeyboardButton(UnicodeEmoji.BROKEN_HEART + " Больше не нравится")
-            .callbackData(Callbacks.callback(REMOVE_SAVED_CALLBACK, pageInfo.currPage.toString())));
+            .callbackData(Callbacks.callback(REMOVE_SAVED_CALLBACK, page.saved().id().toString())));
 
         return keyboard;
     }
@@ -156,22 +149,4 @@ public class SavedHandler implements ChatEventHandler {
         return new SendMessage(chatId, "Ваша коллекция пуста.");
     }
 
-    @Getter
-    @ToString
-    private static class SavedPageInfo {
-
-        private final SavedDto saved;
-        private final Integer prevPage;
-        private final Integer currPage;
-        private final Integer nextPage;
-
-        public SavedPageInfo(List< SavedDto > allSaved, int page) {
-            saved = allSaved.get(page);
-            prevPage = (page != 0) ? page - 1 : null;
-            currPage = page;
-            nextPage = (page != allSaved.size() - 1) ? page + 1 : null;
-        }
-
-    }
-
 }
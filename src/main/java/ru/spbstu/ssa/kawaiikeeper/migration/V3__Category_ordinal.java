@@ -0,0 +1,42 @@
+package ru.spbstu.ssa.kawaiikeeper.migration;
+
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+@RequiredArgsConstructor
+@Component
+public class V3__Category_ordinal extends BaseJavaMigration {
+
+    private final CategoryCatalog categoryCatalog;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table category add column category_ordinal smallint");
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+            "update category set category_ordinal = ? where category_name = ?")) {
+            for (int ordinal = 0; ordinal < categoryCatalog.size(); ordinal++) {
+                update.setShort(1, (short) ordinal);
+                update.setString(2, categoryCatalog.nameOf(ordinal));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+        try (Statement statement = connection.createStatement()) {
+            // users of categories no longer in the catalog fall back to the default one
+            statement.execute("update category set category_ordinal = 0 where category_ordinal is null");
+            statement.execute("alter table category alter column category_ordinal set not null");
+            statement.execute("alter table category drop column category_name");
+        }
+    }
+
+}
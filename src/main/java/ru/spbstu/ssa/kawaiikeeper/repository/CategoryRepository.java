@@ -1,10 +1,16 @@
 package ru.spbstu.ssa.kawaiikeeper.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import ru.spbstu.ssa.kawaiikeeper.entity.Category;
 
+import java.util.Optional;
+
 @Repository
 public interface CategoryRepository extends CrudRepository< Category, Long > {
 
+    @Query(value = "select max(category_ordinal) from category", nativeQuery = true)
+    Optional< Short > findMaxOrdinal();
+
 }
@@ -0,0 +1,45 @@
+package ru.spbstu.ssa.kawaiikeeper.repository;
+
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.spbstu.ssa.kawaiikeeper.entity.OutboxMessage;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends JpaRepository< OutboxMessage, Long > {
+
+    // rows locked by a concurrent claim are skipped, so every lapsed row goes to exactly one instance
+    @Transactional
+    @Query(value = """
+        update outbox set lease_owner = :owner, lease_until = :leaseUntil
+        where id in (select id from outbox where lease_until < :now order by id limit :limit for update skip locked)
+        returning *
+        """, nativeQuery = true)
+    List< OutboxMessage > claimExpired(@Param("owner") String owner, @Param("now") Instant now,
+                                       @Param("leaseUntil") Instant leaseUntil, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage m set m.leaseUntil = :leaseUntil where m.leaseOwner = :owner and m.id in :ids")
+    int renewLeases(@Param("owner") String owner, @Param("ids") Collection< Long > ids,
+                    @Param("leaseUntil") Instant leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("update OutboxMessage m set m.leaseOwner = null, m.leaseUntil = :now where m.leaseOwner = :owner")
+    int releaseLeases(@Param("owner") String owner, @Param("now") Instant now);
+
+    // rows leased by a live instance are left to it, it acknowledges or drops them itself
+    @Modifying
+    @Transactional
+    @Query("delete from OutboxMessage m where m.createdAt < :createdBefore and m.leaseUntil < :now")
+    int deleteExpired(@Param("createdBefore") Instant createdBefore, @Param("now") Instant now);
+
+}
@@ -1,15 +1,91 @@
 package ru.spbstu.ssa.kawaiikeeper.repository;
 
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import ru.spbstu.ssa.kawaiikeeper.entity.Saved;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface SavedRepository extends CrudRepository< Saved, Long > {
 
-    List< Saved > findByUserIdOrderByCreatedAtAsc(long userId);
+    Optional< Saved > findFirstByUserIdOrderByCreatedAtAscIdAsc(long userId);
+
+    Optional< Saved > findByIdAndUserId(long id, long userId);
+
+    @Query("""
+        select s.id from Saved s
+        where s.userId = :userId
+          and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id))
+        order by s.createdAt desc, s.id desc
+        """)
+    List< Long > findPreviousIds(@Param("userId") long userId, @Param("createdAt") Instant createdAt,
+                                 @Param("id") long id, Pageable pageable);
+
+    @Query("""
+        select s.id from Saved s
+        where s.userId = :userId
+          and (s.createdAt > :createdAt or (s.createdAt = :createdAt and s.id > :id))
+        order by s.createdAt asc, s.id asc
+        """)
+    List< Long > findNextIds(@Param("userId") long userId, @Param("createdAt") Instant createdAt,
+                             @Param("id") long id, Pageable pageable);
+
+    @Query("""
+        select s from Saved s
+        where s.userId = :userId
+          and (s.createdAt < :createdAt or (s.createdAt = :createdAt and s.id < :id))
+        order by s.createdAt desc, s.id desc
+        """)
+    List< Saved > findPrevious(@Param("userId") long userId, @Param("createdAt") Instant createdAt,
+                               @Param("id") long id, Pageable pageable);
+
+    @Query("""
+        select s from Saved s
+        where s.userId = :userId
+          and (s.createdAt > :createdAt or (s.createdAt = :createdAt and s.id > :id))
+        order by s.createdAt asc, s.id asc
+        """)
+    List< Saved > findNext(@Param("userId") long userId, @Param("createdAt") Instant createdAt,
+                           @Param("id") long id, Pageable pageable);
 
     Boolean existsByUserId(long userId);
 
-    void deleteByUserId(long userId);
+    @Transactional
+    @Query(value = """
+        insert into saved (user_id, external_id, image_url, category_name, created_at, file_id)
+        values (:userId, :externalId, :imageUrl, :categoryName, :createdAt, :fileId)
+        on conflict (user_id, external_id) do nothing
+        returning id
+        """, nativeQuery = true)
+    Optional< Long > insertIfAbsent(@Param("userId") long userId, @Param("externalId") String externalId,
+                                    @Param("imageUrl") String imageUrl, @Param("categoryName") String categoryName,
+                                    @Param("createdAt") Instant createdAt, @Param("fileId") String fileId);
+
+    // ownership check, delete and keyset anchor in one statement
+    @Query(value = "delete from saved where id = :id and user_id = :userId returning *", nativeQuery = true)
+    Optional< Saved > deleteReturning(@Param("id") long id, @Param("userId") long userId);
+
+    @Modifying
+    @Transactional
+    @Query(value = """
+        delete from saved
+        where id in (select id from saved where user_id = :userId limit :limit)
+        """, nativeQuery = true)
+    int deleteChunkByUserId(@Param("userId") long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query("update Saved s set s.fileId = :fileId where s.externalId = :externalId and s.fileId is null")
+    int updateMissingFileId(@Param("externalId") String externalId, @Param("fileId") String fileId);
+
+    @Modifying
+    @Transactional
+    @Query("update Saved s set s.fileId = null where s.externalId = :externalId and s.fileId = :fileId")
+    int clearFileId(@Param("externalId") String externalId, @Param("fileId") String fileId);
 }
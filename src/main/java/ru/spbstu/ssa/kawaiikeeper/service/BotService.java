@@ -8,18 +8,29 @@ import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.Update;
 import com.pengrad.telegrambot.request.AnswerCallbackQuery;
 import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.DeleteWebhook;
+import com.pengrad.telegrambot.request.GetMe;
 import com.pengrad.telegrambot.request.SendMessage;
 import com.pengrad.telegrambot.request.SetMyCommands;
+import com.pengrad.telegrambot.request.SetWebhook;
+import com.pengrad.telegrambot.response.GetMeResponse;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import ru.spbstu.ssa.kawaiikeeper.common.Callbacks;
+import ru.spbstu.ssa.kawaiikeeper.common.Commands;
+import ru.spbstu.ssa.kawaiikeeper.common.RouteTable;
+import ru.spbstu.ssa.kawaiikeeper.config.DispatchConfig;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
 import ru.spbstu.ssa.kawaiikeeper.handler.ChatEventHandler;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,35 +43,82 @@ public class BotService {
 
     private final TelegramBot bot;
     private final List< ChatEventHandler > availableHandlers;
+    private final DispatchConfig dispatchConfig;
+    private final UpdateDispatcher updateDispatcher;
+    private final WebhookServer webhookServer;
+    private final OutboxService outboxService;
 
     private final Map< String, Function< ? super Message, List< ? extends BaseRequest< ?, ? > > > > commandHandlers = new HashMap<>();
     private final Map< String, Function< ? super CallbackQuery, List< ? extends BaseRequest< ?, ? > > > > callbackHandlers = new HashMap<>();
 
+    private RouteTable< Function< ? super Message, List< ? extends BaseRequest< ?, ? > > > > commandRoutes;
+    private RouteTable< Function< ? super CallbackQuery, List< ? extends BaseRequest< ?, ? > > > > callbackRoutes;
+    private String botUsername;
+
     @PostConstruct
     private void registerBot() {
         log.info("Registering EventHandlers");
         availableHandlers.forEach(this::registerChatEventHandler);
 
+        commandRoutes = new RouteTable<>(commandHandlers);
+        callbackRoutes = new RouteTable<>(callbackHandlers);
+
         log.info("Available commands:");
-        commandHandlers.keySet().forEach(log::info);
+        commandRoutes.names().forEach(log::info);
 
         log.info("Handled callbacks:");
-        callbackHandlers.keySet().forEach(log::info);
+        callbackRoutes.names().forEach(log::info);
+
+        botUsername = fetchBotUsername();
 
         log.info("Setting up commands");
         setUpCommands();
 
-        log.info("Registering bot listener");
-        bot.setUpdatesListener(updates -> {
-                log.info("Updates received: {}", updates.size());
-                updates.forEach(this::handleUpdate);
-                return UpdatesListener.CONFIRMED_UPDATES_ALL;
-            },
-            e -> log.error("Telegram exception", e)
-        );
+        if (dispatchConfig.getMode() == DispatchConfig.UpdatesMode.WEBHOOK) {
+            log.info("Registering bot webhook");
+            setUpWebhook();
+        } else {
+            log.info("Registering bot listener");
+            bot.execute(new DeleteWebhook());
+            bot.setUpdatesListener(updates -> {
+                    handleUpdates(updates);
+                    return UpdatesListener.CONFIRMED_UPDATES_ALL;
+                },
+                e -> log.error("Telegram exception", e)
+            );
+        }
         log.info("Bot successfully registered");
     }
 
+    private void setUpWebhook() {
+        if (!StringUtils.hasText(dispatchConfig.getWebhookUrl())) {
+            throw new IllegalStateException("Webhook URL must be specified in webhook mode");
+        }
+        try {
+            webhookServer.start(this::handleUpdates);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to start webhook server", e);
+        }
+
+        SetWebhook setWebhook = new SetWebhook()
+            .url(dispatchConfig.getWebhookUrl())
+            .secretToken(dispatchConfig.getWebhookSecret())
+            .maxConnections(dispatchConfig.getWebhookMaxConnections());
+        var response = bot.execute(setWebhook);
+        if (!response.isOk()) {
+            throw new IllegalStateException("Failed to set webhook: " + response.description());
+        }
+    }
+
+    private @Nullable String fetchBotUsername() {
+        GetMeResponse response = bot.execute(new GetMe());
+        if (!response.isOk() || response.user() == null) {
+            log.warn("Failed to fetch bot username, accepting commands addressed to any bot");
+            return null;
+        }
+        return response.user().username();
+    }
+
     private void registerChatEventHandler(@NonNull ChatEventHandler chatEventHandler) {
         log.info("Registering {}", chatEventHandler.getClass().getSimpleName());
         commandHandlers.putAll(chatEventHandler.commandHandlers());
@@ -79,47 +137,51 @@ public class BotService {
         bot.execute(setCommands);
     }
 
+    private void handleUpdates(@NonNull List< Update > updates) {
+        log.info("Updates received: {}", updates.size());
+        updateDispatcher.dispatch(updates, this::handleUpdate);
+    }
+
     private void handleUpdate(@NonNull Update update) {
+        long chatId = UpdateDispatcher.chatIdOf(update);
         try {
             if (update.message() != null) {
-                handleMessage(update.message());
+                handleMessage(chatId, update.message());
             } else if (update.callbackQuery() != null) {
-                handleCallbackQuery(update.callbackQuery());
-                bot.execute(new AnswerCallbackQuery(update.callbackQuery().id()));
+                handleCallbackQuery(chatId, update.callbackQuery());
             }
         } catch (ChatActionException e) {
             log.warn("Exception by user's actions", e);
-            bot.execute(new SendMessage(e.getChatId(), e.getMessage()));
+            outboxService.enqueue(e.getChatId(), List.of(new SendMessage(e.getChatId(), e.getMessage())));
         }
     }
 
-    private void handleMessage(@NonNull Message message) {
-        String command = message.text().substring(1);
-        log.info("Received command {} from userId={}", command, message.from().id());
-        var handler = commandHandlers.get(command);
-        handlePrepared(handler, message);
-    }
-
-    private void handleCallbackQuery(@NonNull CallbackQuery query) {
-        String identifier = Callbacks.identifierOf(query.data());
-        log.info("Received callback {} from userId={}", identifier, query.from().id());
-        var handler = callbackHandlers.get(identifier);
-        handlePrepared(handler, query);
+    private void handleMessage(long chatId, @NonNull Message message) {
+        String text = message.text();
+        if (!Commands.isCommand(text) || !Commands.isAddressedTo(text, botUsername)) {
+            return;
+        }
+        var route = commandRoutes.find(text, Commands.nameStart(), Commands.nameEnd(text));
+        if (route == null) {
+            log.debug("Unknown command from userId={}", message.from().id());
+            return;
+        }
+        log.info("Received command {} from userId={}", route.name(), message.from().id());
+        outboxService.enqueue(chatId, route.handler().apply(message));
     }
 
-    private < T > void handlePrepared(@Nullable Function< ? super T, List< ? extends BaseRequest< ?, ? > > > handler,
-                                      T preparedData) {
-        if (handler == null) {
-            return;
+    private void handleCallbackQuery(long chatId, @NonNull CallbackQuery query) {
+        List< BaseRequest< ?, ? > > requests = new ArrayList<>();
+        String data = query.data();
+        var route = (data != null) ? callbackRoutes.find(data, 0, Callbacks.identifierEnd(data)) : null;
+        if (route != null) {
+            log.info("Received callback {} from userId={}", route.name(), query.from().id());
+            requests.addAll(route.handler().apply(query));
+        }
+        if (requests.stream().noneMatch(AnswerCallbackQuery.class::isInstance)) {
+            requests.add(new AnswerCallbackQuery(query.id()));
         }
-        handler.apply(preparedData)
-            .forEach(req -> {
-                log.info("Sending {} request", req.getClass().getSimpleName());
-                var response = bot.execute(req);
-                if (!response.isOk()) {
-                    log.error("Request failed with code {}. {}", response.errorCode(), response.description());
-                }
-            });
+        outboxService.enqueue(chatId, requests);
     }
 
 }
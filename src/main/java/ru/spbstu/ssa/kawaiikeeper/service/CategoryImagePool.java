@@ -0,0 +1,183 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.common.SingleFlight;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+@Slf4j
+@Service
+public class CategoryImagePool {
+
+    private static final int MAX_SYNC_FETCHES = 3;
+
+    private final ImageService imageService;
+    private final int capacity;
+    private final int lowWatermark;
+    private final int maxBatchSize;
+    private final long batchTargetNanos;
+    private final ExecutorService refillExecutor;
+    private final Map< String, Pool > pools = new ConcurrentHashMap<>();
+    private final SingleFlight< String, Integer > fetches = new SingleFlight<>();
+
+    public CategoryImagePool(ImageService imageService, CacheConfig cacheConfig) {
+        this.imageService = imageService;
+        this.capacity = cacheConfig.getPoolCapacity();
+        this.lowWatermark = cacheConfig.getPrefetchSize();
+        this.maxBatchSize = cacheConfig.getPrefetchMaxBatchSize();
+        this.batchTargetNanos = cacheConfig.getPrefetchBatchTargetInterval().toNanos();
+        this.refillExecutor = Executors.newFixedThreadPool(
+            cacheConfig.getPrefetchWorkerCount(),
+            new CustomizableThreadFactory("pool-refill-")
+        );
+    }
+
+    public @NonNull Cursor openCursor(@NonNull String categoryName) {
+        return new Cursor(categoryName, poolOf(categoryName).head());
+    }
+
+    // markSeen records an image for the user and returns false if they have already seen it
+    public @NonNull ImageDto next(@NonNull Cursor cursor, @NonNull Predicate< String > markSeen) {
+        Pool pool = poolOf(cursor.categoryName);
+        synchronized (cursor) {
+            for (int fetched = 0; ; fetched++) {
+                ImageDto image;
+                while ((image = pool.take(cursor)) != null) {
+                    if (markSeen.test(image.externalId())) {
+                        refillIfLow(pool, cursor);
+                        return image;
+                    }
+                }
+                if (fetched == MAX_SYNC_FETCHES) {
+                    throw new ImageApiException("No unseen images for category " + cursor.categoryName);
+                }
+                fetch(pool);
+            }
+        }
+    }
+
+    public long size(@NonNull String categoryName) {
+        Pool pool = pools.get(categoryName);
+        return (pool == null) ? 0 : pool.tail() - pool.head();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    private Pool poolOf(String categoryName) {
+        return pools.computeIfAbsent(categoryName, name -> new Pool(name, capacity, Math.min(lowWatermark, maxBatchSize)));
+    }
+
+    private void refillIfLow(Pool pool, Cursor cursor) {
+        if (pool.tail() - cursor.position > lowWatermark || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        refillExecutor.execute(() -> {
+            try {
+                fetch(pool);
+            } catch (Exception e) {
+                log.warn("Failed to refill image pool for category={}", pool.categoryName, e);
+            } finally {
+                pool.refilling.set(false);
+            }
+        });
+    }
+
+    private void fetch(Pool pool) {
+        // users draining the same category share one upstream call
+        fetches.execute(pool.categoryName, () -> {
+            List< ImageDto > images = imageService.pollShared(pool.categoryName, adaptBatchSize(pool));
+            pool.append(images);
+            return images.size();
+        });
+    }
+
+    private int adaptBatchSize(Pool pool) {
+        synchronized (pool) {
+            long now = System.nanoTime();
+            if (pool.lastFetchNanos != 0) {
+                long sinceLastFetch = now - pool.lastFetchNanos;
+                if (sinceLastFetch < batchTargetNanos) {
+                    pool.batchSize = Math.min(maxBatchSize, pool.batchSize * 2);
+                } else if (sinceLastFetch > 2 * batchTargetNanos) {
+                    pool.batchSize = Math.max(1, pool.batchSize / 2);
+                }
+            }
+            pool.lastFetchNanos = now;
+            return pool.batchSize;
+        }
+    }
+
+    public static final class Cursor {
+
+        private final String categoryName;
+        private long position;
+
+        private Cursor(String categoryName, long position) {
+            this.categoryName = categoryName;
+            this.position = position;
+        }
+
+        public @NonNull String categoryName() {
+            return categoryName;
+        }
+
+    }
+
+    private static final class Pool {
+
+        private final String categoryName;
+        private final ImageDto[] ring;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+        private long tail;
+        private int batchSize;
+        private long lastFetchNanos;
+
+        private Pool(String categoryName, int capacity, int batchSize) {
+            this.categoryName = categoryName;
+            this.ring = new ImageDto[capacity];
+            this.batchSize = batchSize;
+        }
+
+        private synchronized long head() {
+            return Math.max(0, tail - ring.length);
+        }
+
+        private synchronized long tail() {
+            return tail;
+        }
+
+        private synchronized void append(List< ImageDto > images) {
+            for (ImageDto image : images) {
+                ring[(int) (tail % ring.length)] = image;
+                tail++;
+            }
+        }
+
+        private synchronized ImageDto take(Cursor cursor) {
+            // cursors that fell behind the ring skip the overwritten entries
+            cursor.position = Math.max(cursor.position, head());
+            if (cursor.position == tail) {
+                return null;
+            }
+            return ring[(int) (cursor.position++ % ring.length)];
+        }
+
+    }
+
+}
@@ -1,43 +1,89 @@
 package ru.spbstu.ssa.kawaiikeeper.service;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
-import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
 import ru.spbstu.ssa.kawaiikeeper.entity.Category;
 import ru.spbstu.ssa.kawaiikeeper.repository.CategoryRepository;
 
 import java.util.Optional;
 
-@RequiredArgsConstructor
+@Slf4j
 @Service
 public class CategoryService {
 
-    private final ApiConfig apiConfig;
+    private final CategoryCatalog categoryCatalog;
     private final CategoryRepository categoryRepository;
+    private final FeedPrefetcher feedPrefetcher;
+    private final Cache< Long, Category > categories;
+
+    public CategoryService(CategoryCatalog categoryCatalog, CategoryRepository categoryRepository,
+                           FeedPrefetcher feedPrefetcher, CacheConfig cacheConfig) {
+        this.categoryCatalog = categoryCatalog;
+        this.categoryRepository = categoryRepository;
+        this.feedPrefetcher = feedPrefetcher;
+        this.categories = Caffeine.newBuilder()
+            .maximumSize(cacheConfig.getCategoryMaxUsers())
+            .expireAfterAccess(cacheConfig.getCategoryIdleTimeout())
+            .recordStats()
+            .build();
+    }
 
     public boolean hasCategory(long userId) {
-        return categoryRepository.findById(userId).isPresent();
+        return findCategory(userId).isPresent();
     }
 
     public Optional< Category > findCategory(long userId) {
-        return categoryRepository.findById(userId);
+        return Optional.ofNullable(categories.get(userId, id -> categoryRepository.findById(id).orElse(null)));
     }
 
     public String getDefaultCategoryName() {
-        return apiConfig.getApiCategories().get(0);
+        return categoryCatalog.defaultName();
     }
 
     public Category setDefaultCategory(long userId) {
-        return categoryRepository.save(new Category(userId, getDefaultCategoryName()));
+        Category saved = categoryRepository.save(new Category(userId, getDefaultCategoryName()));
+        categories.put(userId, saved);
+        return saved;
     }
 
     public Category updateCategory(long userId, String categoryName) {
-        if (!apiConfig.getApiCategories().contains(categoryName)) {
+        if (!categoryCatalog.contains(categoryName)) {
             throw new RuntimeException("Category " + categoryName + " not found");
         }
-        return categoryRepository.save(new Category(userId, categoryName));
+        Category updated = categoryRepository.save(new Category(userId, categoryName));
+        categories.put(userId, updated);
+        feedPrefetcher.invalidate(userId);
+        return updated;
     }
 
-}
+    // stored ordinals are positions in api-config.api-categories, so a shortened list would break the feeds of some users
+    @PostConstruct
+    void checkStoredOrdinals() {
+        categoryRepository.findMaxOrdinal()
+            .filter(max -> max >= categoryCatalog.size())
+            .ifPresent(max -> {
+                throw new IllegalStateException("Stored category ordinal " + max + " is outside api-config.api-categories of size "
+                    + categoryCatalog.size() + ", categories must only be appended");
+            });
+    }
 
+    public @NonNull CacheStats stats() {
+        return categories.stats();
+    }
+
+    @PreDestroy
+    private void logStats() {
+        CacheStats stats = stats();
+        log.info("Category cache stats: hits={}, misses={}, evictions={}, hitRate={}",
+            stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
 
+}
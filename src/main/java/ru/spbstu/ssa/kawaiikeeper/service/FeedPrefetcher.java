@@ -0,0 +1,58 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
+import ru.spbstu.ssa.kawaiikeeper.entity.Category;
+
+@Service
+public class FeedPrefetcher {
+
+    private final CategoryImagePool imagePool;
+    private final SeenImageFilter seenImageFilter;
+    private final Cache< Long, FeedState > states;
+
+    public FeedPrefetcher(CategoryImagePool imagePool, SeenImageFilter seenImageFilter, CacheConfig cacheConfig) {
+        this.imagePool = imagePool;
+        this.seenImageFilter = seenImageFilter;
+        this.states = Caffeine.newBuilder()
+            .maximumSize(cacheConfig.getPrefetchMaxUsers())
+            .expireAfterAccess(cacheConfig.getPrefetchIdleTimeout())
+            .build();
+    }
+
+    public @NonNull ImageDto next(@NonNull Category category) {
+        long userId = category.getUserId();
+        FeedState state = states.get(userId, id -> new FeedState());
+        return imagePool.next(cursorOf(state, category.getCategoryName()), externalId -> seenImageFilter.add(userId, externalId));
+    }
+
+    public void invalidate(long userId) {
+        FeedState state = states.getIfPresent(userId);
+        if (state != null) {
+            synchronized (state) {
+                state.cursor = null;
+            }
+        }
+    }
+
+    private CategoryImagePool.Cursor cursorOf(FeedState state, String categoryName) {
+        synchronized (state) {
+            // seen images are kept by the filter, so only the position in the shared stream is reset
+            if (state.cursor == null || !state.cursor.categoryName().equals(categoryName)) {
+                state.cursor = imagePool.openCursor(categoryName);
+            }
+            return state.cursor;
+        }
+    }
+
+    private static final class FeedState {
+
+        private CategoryImagePool.Cursor cursor;
+
+    }
+
+}
@@ -0,0 +1,154 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pengrad.telegrambot.model.Message;
+import com.pengrad.telegrambot.model.PhotoSize;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+import com.pengrad.telegrambot.response.SendResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.repository.SavedRepository;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class FileIdService {
+
+    private static final int BAD_REQUEST = 400;
+    private static final Duration PENDING_TIMEOUT = Duration.ofMinutes(5);
+
+    private final SavedRepository savedRepository;
+    private final Cache< String, String > fileIds;
+    private final Cache< BaseRequest< ?, ? >, PendingPhoto > pending;
+    // responses arrive on Telegram client threads, database writes are kept off them and applied in order
+    private final ExecutorService storeExecutor =
+        Executors.newSingleThreadExecutor(new CustomizableThreadFactory("file-id-store-"));
+
+    public FileIdService(SavedRepository savedRepository, CacheConfig cacheConfig) {
+        this.savedRepository = savedRepository;
+        this.fileIds = Caffeine.newBuilder()
+            .maximumSize(cacheConfig.getFileIdMaxSize())
+            .build();
+        this.pending = Caffeine.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(PENDING_TIMEOUT)
+            .build();
+    }
+
+    public < T extends BaseRequest< T, ? > > @NonNull T photoRequest(@NonNull String externalId, @NonNull String imageUrl,
+                                                                   @Nullable String storedFileId,
+                                                                   @NonNull Function< String, T > factory) {
+        String fileId = (storedFileId != null) ? storedFileId : fileIds.getIfPresent(externalId);
+        if (fileId == null) {
+            return track(factory.apply(imageUrl), externalId, null, null);
+        }
+        return track(factory.apply(fileId), externalId, fileId, () -> track(factory.apply(imageUrl), externalId, null, null));
+    }
+
+    public Optional< String > find(@NonNull String externalId) {
+        return Optional.ofNullable(fileIds.getIfPresent(externalId));
+    }
+
+    public void rememberFrom(@NonNull String externalId, @Nullable Message message) {
+        largestPhotoOf(message).ifPresent(fileId -> fileIds.put(externalId, fileId));
+    }
+
+    public @Nullable BaseRequest< ?, ? > onResponse(@NonNull BaseRequest< ?, ? > request, @Nullable BaseResponse response) {
+        PendingPhoto photo = pending.asMap().remove(request);
+        if (photo == null || response == null) {
+            return null;
+        }
+        if (response.isOk()) {
+            if (response instanceof SendResponse sendResponse) {
+                largestPhotoOf(sendResponse.message()).ifPresent(fileId -> remember(photo.externalId(), fileId));
+            }
+            return null;
+        }
+        if (photo.urlFallback() != null && isFileIdRejected(response)) {
+            log.warn("Stored file_id of {} rejected ({}), falling back to URL", photo.externalId(), response.description());
+            fileIds.asMap().remove(photo.externalId(), photo.fileId());
+            store(() -> savedRepository.clearFileId(photo.externalId(), photo.fileId()), photo.externalId());
+            return photo.urlFallback().get();
+        }
+        return null;
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        storeExecutor.shutdown();
+    }
+
+    private void remember(String externalId, String fileId) {
+        if (fileId.equals(fileIds.asMap().put(externalId, fileId))) {
+            return;
+        }
+        store(() -> savedRepository.updateMissingFileId(externalId, fileId), externalId);
+    }
+
+    private void store(Runnable update, String externalId) {
+        try {
+            storeExecutor.execute(() -> {
+                try {
+                    update.run();
+                } catch (Exception e) {
+                    log.warn("Failed to persist file_id of {}", externalId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Skipping file_id update of {} during shutdown", externalId);
+        }
+    }
+
+    private < T extends BaseRequest< T, ? > > T track(T request, String externalId, @Nullable String fileId,
+                                                      @Nullable UrlFallback fallback) {
+        pending.put(request, new PendingPhoto(externalId, fileId, fallback));
+        return request;
+    }
+
+    // Only a rejected file_id warrants a resend by URL, other 400s such as "message is not modified" do not
+    private static boolean isFileIdRejected(BaseResponse response) {
+        if (response.errorCode() != BAD_REQUEST || response.description() == null) {
+            return false;
+        }
+        String description = response.description().toLowerCase(Locale.ROOT);
+        return description.contains("file identifier") || description.contains("file_id")
+            || description.contains("file reference");
+    }
+
+    private static Optional< String > largestPhotoOf(@Nullable Message message) {
+        if (message == null || message.photo() == null) {
+            return Optional.empty();
+        }
+        return Stream.of(message.photo())
+            .max(Comparator.comparingLong(size -> (long) size.width() * size.height()))
+            .map(PhotoSize::fileId);
+    }
+
+    @FunctionalInterface
+    private interface UrlFallback {
+
+        BaseRequest< ?, ? > get();
+
+    }
+
+    private record PendingPhoto(String externalId, @Nullable String fileId, @Nullable UrlFallback urlFallback) {
+
+    }
+
+}
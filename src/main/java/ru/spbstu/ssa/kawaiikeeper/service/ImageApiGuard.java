@@ -0,0 +1,151 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import ru.spbstu.ssa.kawaiikeeper.common.CircuitBreaker;
+import ru.spbstu.ssa.kawaiikeeper.common.LatencyTracker;
+import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiException;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiUnavailableException;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class ImageApiGuard {
+
+    private static final int LATENCY_WINDOW = 256;
+    private static final double HEDGE_QUANTILE = 0.95;
+
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyTracker latencyTracker = new LatencyTracker(LATENCY_WINDOW);
+    private final boolean hedgeEnabled;
+    private final long hedgeMinDelayNanos;
+    private final ExecutorService hedgeExecutor;
+
+    public ImageApiGuard(ApiConfig apiConfig) {
+        this.circuitBreaker = new CircuitBreaker(
+            apiConfig.getBreakerFailureThreshold(),
+            apiConfig.getBreakerOpenDuration().toNanos()
+        );
+        this.hedgeEnabled = apiConfig.isHedgeEnabled();
+        this.hedgeMinDelayNanos = apiConfig.getHedgeMinDelay().toNanos();
+        this.hedgeExecutor = hedgeEnabled
+            ? Executors.newCachedThreadPool(new CustomizableThreadFactory("image-hedge-"))
+            : null;
+    }
+
+    public < T > T call(Supplier< T > request) {
+        if (!circuitBreaker.tryAcquire(System.nanoTime())) {
+            throw new ImageApiUnavailableException("Image API circuit is open");
+        }
+        long start = System.nanoTime();
+        // anything but a result or a client-side error counts as a failure, so a half-open trial is always released
+        boolean healthy = false;
+        try {
+            T result = hedgeEnabled ? callHedged(request) : request.get();
+            latencyTracker.record(System.nanoTime() - start);
+            healthy = true;
+            return result;
+        } catch (RuntimeException e) {
+            healthy = !isUpstreamFailure(e);
+            throw e;
+        } finally {
+            if (healthy) {
+                circuitBreaker.onSuccess();
+            } else {
+                circuitBreaker.onFailure(System.nanoTime());
+                if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                    log.warn("Image API circuit is open after a failed call");
+                }
+            }
+        }
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    private < T > T callHedged(Supplier< T > request) {
+        long hedgeDelay = latencyTracker.percentile(HEDGE_QUANTILE);
+        if (hedgeDelay < 0) {
+            return request.get();
+        }
+        CompletableFuture< T > primary = CompletableFuture.supplyAsync(request, hedgeExecutor);
+        try {
+            return primary.get(Math.max(hedgeDelay, hedgeMinDelayNanos), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            CompletableFuture< T > hedge = CompletableFuture.supplyAsync(request, hedgeExecutor);
+            return join(firstSuccessful(primary, hedge));
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImageApiException("Interrupted while waiting for image API", e);
+        }
+    }
+
+    private static < T > CompletableFuture< T > firstSuccessful(CompletableFuture< T > first, CompletableFuture< T > second) {
+        CompletableFuture< T > result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture< T > attempt : List.of(first, second)) {
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(error);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static < T > T join(CompletableFuture< T > future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return (error instanceof RuntimeException runtime)
+            ? runtime
+            : new ImageApiException("Image API call failed", error);
+    }
+
+    private static boolean isUpstreamFailure(RuntimeException e) {
+        if (e instanceof ResourceAccessException) {
+            return true;
+        }
+        if (e instanceof ImageApiException apiException) {
+            HttpStatusCode statusCode = apiException.getStatusCode();
+            return statusCode != null && statusCode.is5xxServerError();
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,93 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Slf4j
+@Service
+public class ImageCache {
+
+    private final Cache< String, ImageDto > images;
+    private final Map< String, Deque< ImageDto > > recentByCategory = new ConcurrentHashMap<>();
+    private final int recentPerCategory;
+
+    public ImageCache(CacheConfig cacheConfig) {
+        this.recentPerCategory = cacheConfig.getFallbackImagesPerCategory();
+        this.images = Caffeine.newBuilder()
+            .maximumSize(cacheConfig.getImageMaxSize())
+            .expireAfterWrite(cacheConfig.getImageTtl())
+            .recordStats()
+            .build();
+    }
+
+    public Optional< ImageDto > find(@NonNull String externalId) {
+        return Optional.ofNullable(images.getIfPresent(externalId));
+    }
+
+    public void put(@NonNull ImageDto image) {
+        images.put(image.externalId(), image);
+    }
+
+    public void putAll(@NonNull String categoryName, @NonNull Collection< ImageDto > batch) {
+        for (ImageDto image : batch) {
+            put(image);
+        }
+        Deque< ImageDto > recent = recentByCategory.computeIfAbsent(categoryName, name -> new ArrayDeque<>());
+        synchronized (recent) {
+            for (ImageDto image : batch) {
+                recent.addLast(image);
+                if (recent.size() > recentPerCategory) {
+                    recent.removeFirst();
+                }
+            }
+        }
+    }
+
+    public @NonNull List< ImageDto > recent(@NonNull String categoryName, int count) {
+        Deque< ImageDto > recent = recentByCategory.get(categoryName);
+        if (recent == null) {
+            return List.of();
+        }
+        List< ImageDto > candidates;
+        synchronized (recent) {
+            candidates = new ArrayList<>(recent);
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        return List.copyOf(candidates.subList(0, Math.min(count, candidates.size())));
+    }
+
+    public void invalidateAll() {
+        images.invalidateAll();
+        recentByCategory.clear();
+    }
+
+    public @NonNull CacheStats stats() {
+        return images.stats();
+    }
+
+    @PreDestroy
+    private void logStats() {
+        CacheStats stats = stats();
+        log.info("Image cache stats: hits={}, misses={}, evictions={}, hitRate={}",
+            stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
+
+}
@@ -0,0 +1,130 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+final class ImageResponseReader {
+
+    private ImageResponseReader() {
+    }
+
+    static ImageDto readImage(JsonParser parser) throws IOException {
+        expectObjectStart(parser.nextToken());
+        return readImageFields(parser);
+    }
+
+    static List< ImageDto > readImages(JsonParser parser) throws IOException {
+        expectObjectStart(parser.nextToken());
+        ImageFields single = new ImageFields();
+        List< ImageDto > batch = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("images".equals(field) && value == JsonToken.START_ARRAY) {
+                batch = new ArrayList<>();
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    batch.add(readImageFields(parser));
+                }
+            } else if (!single.accept(field, parser)) {
+                parser.skipChildren();
+            }
+        }
+        return (batch != null) ? batch : List.of(single.toImage());
+    }
+
+    private static ImageDto readImageFields(JsonParser parser) throws IOException {
+        ImageFields fields = new ImageFields();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (!fields.accept(field, parser)) {
+                parser.skipChildren();
+            }
+        }
+        return fields.toImage();
+    }
+
+    private static String readCompressedUrl(JsonParser parser) throws IOException {
+        String url = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("compressed".equals(field) && value == JsonToken.START_OBJECT) {
+                url = readUrl(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return url;
+    }
+
+    private static String readUrl(JsonParser parser) throws IOException {
+        String url = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("url".equals(field)) {
+                url = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return url;
+    }
+
+    private static void expectObjectStart(JsonToken token) {
+        if (token != JsonToken.START_OBJECT) {
+            throw new ImageApiException("Malformed response: expected JSON object but got " + token);
+        }
+    }
+
+    private static final class ImageFields {
+
+        private String id;
+        private String category;
+        private String url;
+
+        private boolean accept(String field, JsonParser parser) throws IOException {
+            boolean scalar = parser.currentToken().isScalarValue();
+            switch (field) {
+                case "id" -> {
+                    if (!scalar) {
+                        return false;
+                    }
+                    id = parser.getValueAsString();
+                }
+                case "category" -> {
+                    if (!scalar) {
+                        return false;
+                    }
+                    category = parser.getValueAsString();
+                }
+                case "image" -> {
+                    if (parser.currentToken() != JsonToken.START_OBJECT) {
+                        return false;
+                    }
+                    url = readCompressedUrl(parser);
+                }
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private ImageDto toImage() {
+            if (id == null || category == null || url == null) {
+                throw new ImageApiException("Malformed response: image must have id, category and image.compressed.url");
+            }
+            return new ImageDto(id, url, category);
+        }
+
+    }
+
+}
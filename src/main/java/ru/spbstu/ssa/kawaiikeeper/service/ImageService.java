@@ -1,59 +1,85 @@
 package ru.spbstu.ssa.kawaiikeeper.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import ru.spbstu.ssa.kawaiikeeper.common.SingleFlight;
 import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
-import ru.spbstu.ssa.kawaiikeeper.entity.Category;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiException;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiUnavailableException;
+
+import java.io.IOException;
+import java.util.List;
 
 @RequiredArgsConstructor
 @Service
 public class ImageService {
 
-    private static final String POLL_TEMPLATE = "/images/%s?session=id&id=%d&count=1";
+    private static final String SHARED_POLL_TEMPLATE = "/images/%s?count=%d";
     private static final String GET_TEMPLATE = "/getImageById/%s";
 
     private final RestClient restClient;
     private final ObjectMapper objectMapper;
+    private final ImageCache imageCache;
+    private final ImageApiGuard imageApiGuard;
+    private final SingleFlight< String, ImageDto > byIdFlights = new SingleFlight<>();
 
-    public @NonNull ImageDto pollNext(@NonNull Category category) {
-        String rawResponse = getRawResponseFrom(POLL_TEMPLATE.formatted(category.getCategoryName(), category.getUserId()));
-        return parseApiResponse(rawResponse);
+    public @NonNull List< ImageDto > pollShared(@NonNull String categoryName, int count) {
+        return poll(categoryName, SHARED_POLL_TEMPLATE.formatted(categoryName, count), count);
     }
 
     public @NonNull ImageDto getByExternalId(@NonNull String externalId) {
-        String rawResponse = getRawResponseFrom(GET_TEMPLATE.formatted(externalId));
-        return parseApiResponse(rawResponse);
+        return imageCache.find(externalId).orElseGet(() -> {
+            String preparedUri = GET_TEMPLATE.formatted(externalId);
+            return byIdFlights.execute(preparedUri, () -> {
+                ImageDto image = imageApiGuard.call(() -> fetch(preparedUri, ImageResponseReader::readImage));
+                imageCache.put(image);
+                return image;
+            });
+        });
+    }
+
+    private List< ImageDto > poll(String categoryName, String preparedUri, int count) {
+        try {
+            List< ImageDto > images = imageApiGuard.call(() -> fetch(preparedUri, ImageResponseReader::readImages));
+            imageCache.putAll(categoryName, images);
+            return images;
+        } catch (ImageApiUnavailableException e) {
+            List< ImageDto > fallback = imageCache.recent(categoryName, count);
+            if (fallback.isEmpty()) {
+                throw e;
+            }
+            return fallback;
+        }
     }
 
-    private String getRawResponseFrom(String preparedUri) {
+    private < T > T fetch(String preparedUri, ResponseReader< T > reader) {
         return restClient
             .get()
             .uri(preparedUri)
             .accept(MediaType.APPLICATION_JSON)
-            .retrieve()
-            .onStatus(HttpStatusCode::isError, (req, res) -> {
-                throw new RuntimeException("HTTP error: " + res.getStatusCode());
-            })
-            .body(String.class);
+            .exchange((req, res) -> {
+                if (res.getStatusCode().isError()) {
+                    throw new ImageApiException(res.getStatusCode());
+                }
+                try (JsonParser parser = objectMapper.getFactory().createParser(res.getBody())) {
+                    return reader.read(parser);
+                } catch (JsonProcessingException e) {
+                    throw new ImageApiException("Malformed response from " + preparedUri, e);
+                }
+            });
     }
 
-    private ImageDto parseApiResponse(String rawResponse) {
-        try {
-            JsonNode parsedResponse = objectMapper.readTree(rawResponse);
-            String id = parsedResponse.get("id").asText();
-            String category = parsedResponse.get("category").asText();
-            String url = parsedResponse.get("image").get("compressed").get("url").asText();
-            return new ImageDto(id, url, category);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException(e);
-        }
+    @FunctionalInterface
+    private interface ResponseReader< T > {
+
+        T read(JsonParser parser) throws IOException;
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,387 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.SendingConfig;
+import ru.spbstu.ssa.kawaiikeeper.entity.OutboxMessage;
+import ru.spbstu.ssa.kawaiikeeper.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class OutboxService {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int CLAIM_PAGE_SIZE = 500;
+    private static final int RENEW_CHUNK_SIZE = 1000;
+    private static final String ANSWER_CALLBACK_QUERY = "answerCallbackQuery";
+    // Telegram stops accepting answers to a callback query shortly after the button was pressed
+    private static final Duration CALLBACK_QUERY_TTL = Duration.ofSeconds(15);
+    private static final TypeReference< Map< String, Object > > PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    private final OutboxRepository outboxRepository;
+    private final RequestSender requestSender;
+    private final ObjectMapper payloadMapper;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final Duration leaseDuration;
+    private final Duration pollInterval;
+    private final Duration maxAge;
+    // Stored rows are leased to the instance sending them, other instances only claim rows whose lease has lapsed
+    private final String owner = UUID.randomUUID().toString();
+    // Ids of stored rows queued or retried here; only their leases are renewed, and a lapsed one is not queued twice
+    private final Set< Long > inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("outbox-scheduler-"));
+    // Each stripe is drained by a single thread, so replies to one chat leave in the order they were enqueued
+    private final Stripe[] stripes;
+
+    public OutboxService(OutboxRepository outboxRepository, RequestSender requestSender, ObjectMapper objectMapper,
+                         SendingConfig sendingConfig) {
+        this.outboxRepository = outboxRepository;
+        this.requestSender = requestSender;
+        // pengrad models keep their snake_case Bot API names in fields and have no bean getters
+        this.payloadMapper = objectMapper.copy()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+        this.batchSize = sendingConfig.getOutboxBatchSize();
+        this.maxAttempts = sendingConfig.getOutboxMaxAttempts();
+        this.retryBackoffMillis = sendingConfig.getOutboxRetryBackoff().toMillis();
+        this.leaseDuration = sendingConfig.getOutboxLeaseDuration();
+        this.pollInterval = sendingConfig.getOutboxPollInterval();
+        this.maxAge = sendingConfig.getOutboxMaxAge();
+        if (leaseDuration.compareTo(pollInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("Outbox lease must last at least two poll intervals");
+        }
+        this.stripes = new Stripe[sendingConfig.getOutboxWorkerCount()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(Executors.newSingleThreadExecutor(new CustomizableThreadFactory("outbox-" + i + "-")));
+        }
+    }
+
+    public void enqueue(long chatId, @NonNull List< ? extends BaseRequest< ?, ? > > requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        Instant leaseUntil = Instant.now().plus(leaseDuration);
+        List< OutboxMessage > durable = new ArrayList<>(requests.size());
+        List< Pending > batch = new ArrayList<>(requests.size());
+        for (BaseRequest< ?, ? > request : requests) {
+            OutboxMessage message = toMessage(chatId, request, leaseUntil);
+            if (message != null) {
+                durable.add(message);
+            }
+            batch.add(new Pending(chatId, message, request, 1));
+        }
+        try {
+            outboxRepository.saveAll(durable);
+            durable.forEach(message -> inFlight.add(message.getId()));
+        } catch (Exception e) {
+            log.warn("Failed to persist {} requests for chatId={}, sending them without outbox", durable.size(), chatId, e);
+        }
+        stripeOf(chatId).submit(batch);
+    }
+
+    @PostConstruct
+    private void start() {
+        scheduler.scheduleWithFixedDelay(this::poll, 0, pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Keeps the leases of rows queued here, drops rows too old to be worth sending and claims rows nobody holds
+    void poll() {
+        try {
+            Instant now = Instant.now();
+            renewLeases(now.plus(leaseDuration));
+            int expired = outboxRepository.deleteExpired(now.minus(maxAge), now);
+            if (expired > 0) {
+                log.warn("Dropped {} outbox requests older than {}", expired, maxAge);
+            }
+            long claimed = claim(now);
+            if (claimed > 0) {
+                log.info("Claimed {} unsent requests from outbox", claimed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to poll outbox", e);
+        }
+    }
+
+    @PreDestroy
+    private void shutdown() throws InterruptedException {
+        scheduler.shutdownNow();
+        for (Stripe stripe : stripes) {
+            stripe.executor.shutdown();
+        }
+        for (Stripe stripe : stripes) {
+            if (!stripe.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                stripe.executor.shutdownNow();
+            }
+        }
+        try {
+            // unsent rows are handed over to the other instances right away instead of after the lease
+            outboxRepository.releaseLeases(owner, Instant.now());
+        } catch (Exception e) {
+            log.warn("Failed to release outbox leases, other instances will claim them after {}", leaseDuration, e);
+        }
+    }
+
+    private void renewLeases(Instant leaseUntil) {
+        List< Long > ids = List.copyOf(inFlight);
+        for (int from = 0; from < ids.size(); from += RENEW_CHUNK_SIZE) {
+            outboxRepository.renewLeases(owner, ids.subList(from, Math.min(ids.size(), from + RENEW_CHUNK_SIZE)), leaseUntil);
+        }
+    }
+
+    private long claim(Instant now) {
+        long claimed = 0;
+        Instant callbackDeadline = now.minus(CALLBACK_QUERY_TTL);
+        List< OutboxMessage > page;
+        do {
+            page = outboxRepository.claimExpired(owner, now, now.plus(leaseDuration), CLAIM_PAGE_SIZE);
+            List< OutboxMessage > ordered = page.stream().sorted(Comparator.comparing(OutboxMessage::getId)).toList();
+            for (OutboxMessage message : ordered) {
+                if (!inFlight.add(message.getId())) {
+                    continue;
+                }
+                BaseRequest< ?, ? > request = toRequest(message);
+                if (request != null && isExpiredCallbackAnswer(message, callbackDeadline)) {
+                    log.info("Dropping expired outbox request {} ({})", message.getId(), message.getMethod());
+                    request = null;
+                }
+                if (request == null) {
+                    outboxRepository.deleteById(message.getId());
+                    inFlight.remove(message.getId());
+                } else {
+                    stripeOf(message.getChatId()).submit(List.of(new Pending(message.getChatId(), message, request, 1)));
+                    claimed++;
+                }
+            }
+        } while (page.size() == CLAIM_PAGE_SIZE);
+        return claimed;
+    }
+
+    // Runs on the stripe thread; a chat with retryable failures is held back, the other chats keep draining
+    private void send(Stripe stripe, List< Pending > batch) {
+        List< RequestSender.Delivery > deliveries;
+        try {
+            deliveries = requestSender.sendEach(batch.stream().map(Pending::request).toList()).join();
+        } catch (Exception e) {
+            log.error("Failed to send {} outbox requests", batch.size(), e);
+            deliveries = Collections.nCopies(batch.size(), RequestSender.Delivery.RETRYABLE);
+        }
+        List< Long > doneIds = new ArrayList<>();
+        Map< Long, List< Pending > > retries = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Pending entry = batch.get(i);
+            switch (deliveries.get(i)) {
+                case DELIVERED -> doneIds.add(entry.id());
+                case REJECTED -> {
+                    // the API will not accept the request however often it is replayed
+                    log.warn("Dropping outbox request {} ({}) rejected by the API", entry.id(), entry.request().getMethod());
+                    doneIds.add(entry.id());
+                }
+                case RETRYABLE -> {
+                    if (entry.attempt() >= maxAttempts) {
+                        log.error("Dropping outbox request {} ({}) after {} attempts", entry.id(), entry.request().getMethod(), entry.attempt());
+                        doneIds.add(entry.id());
+                    } else {
+                        retries.computeIfAbsent(entry.chatId(), chatId -> new ArrayList<>()).add(entry.retried());
+                    }
+                }
+            }
+        }
+        acknowledge(doneIds);
+        retries.forEach(stripe::hold);
+    }
+
+    private void acknowledge(List< Long > ids) {
+        List< Long > storedIds = ids.stream().filter(Objects::nonNull).toList();
+        if (storedIds.isEmpty()) {
+            return;
+        }
+        try {
+            outboxRepository.deleteAllByIdInBatch(storedIds);
+        } catch (Exception e) {
+            log.warn("Failed to acknowledge {} outbox requests, they will be sent again once their lease lapses", storedIds.size(), e);
+        } finally {
+            storedIds.forEach(inFlight::remove);
+        }
+    }
+
+    private static boolean isExpiredCallbackAnswer(OutboxMessage message, Instant deadline) {
+        return ANSWER_CALLBACK_QUERY.equals(message.getMethod())
+            && message.getCreatedAt() != null && message.getCreatedAt().isBefore(deadline);
+    }
+
+    private @Nullable OutboxMessage toMessage(long chatId, BaseRequest< ?, ? > request, Instant leaseUntil) {
+        if (request.isMultipart()) {
+            return null;
+        }
+        try {
+            Map< String, Object > parameters = new LinkedHashMap<>();
+            for (Map.Entry< String, Object > parameter : request.getParameters().entrySet()) {
+                if (parameter.getValue() != null) {
+                    parameters.put(parameter.getKey(), toParameter(parameter.getValue()));
+                }
+            }
+            return new OutboxMessage(null, chatId, request.getMethod(), payloadMapper.writeValueAsString(parameters), null,
+                owner, leaseUntil);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize {}, sending it without outbox", request.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+
+    // Nested objects are stored as JSON strings, the same form the bot client puts them on the wire
+    private Object toParameter(Object value) throws JsonProcessingException {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        if (value instanceof Enum< ? >) {
+            return value.toString();
+        }
+        return payloadMapper.writeValueAsString(value);
+    }
+
+    private @Nullable BaseRequest< ?, ? > toRequest(OutboxMessage message) {
+        try {
+            return new StoredRequest(message.getMethod(), payloadMapper.readValue(message.getPayload(), PAYLOAD_TYPE));
+        } catch (JsonProcessingException e) {
+            log.error("Dropping malformed outbox request {}", message.getId(), e);
+            return null;
+        }
+    }
+
+    private Stripe stripeOf(long chatId) {
+        return stripes[Math.floorMod(Long.hashCode(chatId), stripes.length)];
+    }
+
+    private final class Stripe {
+
+        private final ExecutorService executor;
+        private final Queue< Pending > queue = new ConcurrentLinkedQueue<>();
+        // Confined to the stripe thread: chats waiting out a retry backoff, with their requests in send order
+        private final Map< Long, List< Pending > > held = new HashMap<>();
+
+        private Stripe(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        private void submit(List< Pending > batch) {
+            queue.addAll(batch);
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.warn("Outbox is shut down, {} requests are left for other instances", batch.size());
+            }
+        }
+
+        private void drain() {
+            for (List< Pending > batch = poll(); !batch.isEmpty(); batch = poll()) {
+                send(this, batch);
+            }
+        }
+
+        private List< Pending > poll() {
+            List< Pending > batch = new ArrayList<>(batchSize);
+            Pending next;
+            while (batch.size() < batchSize && (next = queue.poll()) != null) {
+                List< Pending > waiting = held.get(next.chatId());
+                if (waiting != null) {
+                    waiting.add(next);
+                } else {
+                    batch.add(next);
+                }
+            }
+            return batch;
+        }
+
+        private void hold(long chatId, List< Pending > failed) {
+            held.put(chatId, failed);
+            int attempt = failed.stream().mapToInt(Pending::attempt).max().orElse(2);
+            long delayMillis = retryBackoffMillis << Math.min(attempt - 2, 16);
+            try {
+                scheduler.schedule(() -> executor.execute(() -> release(chatId)), delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                log.warn("Outbox is shut down, {} failed requests are left for other instances", failed.size());
+            }
+        }
+
+        private void release(long chatId) {
+            List< Pending > waiting = held.remove(chatId);
+            if (waiting != null) {
+                send(this, waiting);
+            }
+            drain();
+        }
+
+    }
+
+    private record Pending(long chatId, @Nullable OutboxMessage message, BaseRequest< ?, ? > request, int attempt) {
+
+        private @Nullable Long id() {
+            return (message != null) ? message.getId() : null;
+        }
+
+        private Pending retried() {
+            return new Pending(chatId, message, request, attempt + 1);
+        }
+
+    }
+
+    // Replays a request restored from the outbox; its parameters are already in wire form
+    static final class StoredRequest extends BaseRequest< StoredRequest, BaseResponse > {
+
+        private final String method;
+
+        StoredRequest(String method, Map< String, Object > parameters) {
+            super(BaseResponse.class);
+            this.method = method;
+            parameters.forEach(this::add);
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+
+    }
+
+}
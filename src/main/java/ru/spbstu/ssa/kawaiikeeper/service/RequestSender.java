@@ -0,0 +1,155 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.SendingConfig;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RequestSender {
+
+    private static final String NEW_MESSAGE = "new";
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+
+    private final TelegramBot bot;
+    private final SendScheduler sendScheduler;
+    private final SendingConfig sendingConfig;
+    private final FileIdService fileIdService;
+    private final AtomicLong failedRequests = new AtomicLong();
+
+    public CompletableFuture< Void > sendAll(@NonNull List< ? extends BaseRequest< ?, ? > > requests) {
+        return sendEach(requests).thenAccept(deliveries -> {
+        });
+    }
+
+    // Completes with one delivery per request, in the order of the given requests
+    public CompletableFuture< List< Delivery > > sendEach(@NonNull List< ? extends BaseRequest< ?, ? > > requests) {
+        Map< String, CompletableFuture< Delivery > > chains = new HashMap<>();
+        List< CompletableFuture< Delivery > > deliveries = new ArrayList<>(requests.size());
+        for (BaseRequest< ?, ? > request : requests) {
+            String orderingKey = orderingKeyOf(request);
+            CompletableFuture< Delivery > previous = (orderingKey != null) ? chains.get(orderingKey) : null;
+            CompletableFuture< Delivery > delivery = (previous == null)
+                ? sendReported(request)
+                : previous.thenCompose(done -> sendReported(request));
+            if (orderingKey != null) {
+                chains.put(orderingKey, delivery);
+            }
+            deliveries.add(delivery);
+        }
+        return CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new))
+            .thenApply(done -> deliveries.stream().map(CompletableFuture::join).toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    public < T extends BaseRequest< T, R >, R extends BaseResponse > CompletableFuture< R > send(@NonNull BaseRequest< T, R > request) {
+        log.info("Sending {} request", request.getClass().getSimpleName());
+        CompletableFuture< R > result = new CompletableFuture<>();
+        bot.execute((T) request, new Callback< T, R >() {
+            @Override
+            public void onResponse(T sent, R response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void onFailure(T sent, IOException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    public long getFailedCount() {
+        return failedRequests.get();
+    }
+
+    private CompletableFuture< Delivery > sendReported(BaseRequest< ?, ? > request) {
+        return sendLimited(request, 0)
+            .handle((response, error) -> {
+                BaseRequest< ?, ? > fallback = fileIdService.onResponse(request, response);
+                if (fallback != null) {
+                    return sendReported(fallback);
+                }
+                if (error != null) {
+                    reportFailure(request, error.getMessage());
+                    return CompletableFuture.completedFuture(Delivery.RETRYABLE);
+                }
+                if (!response.isOk()) {
+                    reportFailure(request, "code %d. %s".formatted(response.errorCode(), response.description()));
+                    return CompletableFuture.completedFuture(deliveryOf(response));
+                }
+                return CompletableFuture.completedFuture(Delivery.DELIVERED);
+            })
+            .thenCompose(Function.identity());
+    }
+
+    private < T extends BaseRequest< T, R >, R extends BaseResponse > CompletableFuture< R > sendLimited(BaseRequest< T, R > request,
+                                                                                                   int attempt) {
+        Object chatId = request.getParameters().get("chat_id");
+        return sendScheduler.acquire(chatId)
+            .thenCompose(granted -> send(request))
+            .thenCompose(response -> {
+                Integer retryAfter = retryAfterOf(response);
+                if (retryAfter == null || attempt >= sendingConfig.getMaxFloodRetries()) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                log.warn("Flood limit hit by {}, retrying in {}s", request.getClass().getSimpleName(), retryAfter);
+                sendScheduler.backOff(chatId, Duration.ofSeconds(retryAfter));
+                return sendLimited(request, attempt + 1);
+            });
+    }
+
+    private void reportFailure(BaseRequest< ?, ? > request, String reason) {
+        failedRequests.incrementAndGet();
+        log.error("Request {} failed with {}", request.getClass().getSimpleName(), reason);
+    }
+
+    // Flood limits that outlasted the retries and server errors may pass, other API errors will not
+    private static Delivery deliveryOf(BaseResponse response) {
+        int code = response.errorCode();
+        return (code == TOO_MANY_REQUESTS || code >= SERVER_ERROR) ? Delivery.RETRYABLE : Delivery.REJECTED;
+    }
+
+    private static @Nullable Integer retryAfterOf(BaseResponse response) {
+        if (response.isOk() || response.errorCode() != TOO_MANY_REQUESTS || response.parameters() == null) {
+            return null;
+        }
+        return response.parameters().retryAfter();
+    }
+
+    // Requests editing the same message, or posting new messages to the same chat, must keep their order
+    private static @Nullable String orderingKeyOf(BaseRequest< ?, ? > request) {
+        Object chatId = request.getParameters().get("chat_id");
+        if (chatId == null) {
+            return null;
+        }
+        Object messageId = request.getParameters().get("message_id");
+        return chatId + ":" + ((messageId != null) ? messageId : NEW_MESSAGE);
+    }
+
+    public enum Delivery {
+        DELIVERED,
+        RETRYABLE,
+        REJECTED
+    }
+
+}
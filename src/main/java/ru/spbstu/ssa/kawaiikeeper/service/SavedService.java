@@ -1,64 +1,140 @@
 package ru.spbstu.ssa.kawaiikeeper.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
 import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
 import ru.spbstu.ssa.kawaiikeeper.dto.SavedDto;
+import ru.spbstu.ssa.kawaiikeeper.dto.SavedPageDto;
 import ru.spbstu.ssa.kawaiikeeper.entity.Saved;
 import ru.spbstu.ssa.kawaiikeeper.repository.SavedRepository;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
-@RequiredArgsConstructor
 @Service
 public class SavedService {
 
+    private static final Pageable NEIGHBOUR = PageRequest.of(0, 1);
+    // each chunk commits separately to keep transactions and WAL bursts short
+    private static final int CLEAR_CHUNK_SIZE = 1000;
+
     private final SavedRepository savedRepository;
     private final ImageService imageService;
+    private final FileIdService fileIdService;
+    // answers repeated taps on "save" without an image API call or a database round trip
+    private final Cache< SaveKey, Boolean > recentSaves;
+
+    public SavedService(SavedRepository savedRepository, ImageService imageService, FileIdService fileIdService,
+                        CacheConfig cacheConfig) {
+        this.savedRepository = savedRepository;
+        this.imageService = imageService;
+        this.fileIdService = fileIdService;
+        this.recentSaves = Caffeine.newBuilder()
+            .maximumSize(cacheConfig.getRecentSaveMaxSize())
+            .expireAfterWrite(cacheConfig.getRecentSaveTtl())
+            .build();
+    }
 
-    public void saveImage(long userId, String externalId) {
+    public SaveResult saveImage(long userId, String externalId) {
+        if (recentSaves.getIfPresent(new SaveKey(userId, externalId)) != null) {
+            return SaveResult.ALREADY_SAVED;
+        }
         ImageDto image = imageService.getByExternalId(externalId);
-        saveImage(userId, image);
+        return saveImage(userId, image);
     }
 
-    public void saveImage(long userId, @NonNull ImageDto image) {
-        savedRepository.save(new Saved(
-            null,
+    public SaveResult saveImage(long userId, @NonNull ImageDto image) {
+        Optional< Long > insertedId = savedRepository.insertIfAbsent(
             userId,
             image.externalId(),
             image.imageUrl(),
             image.categoryName(),
-            null)
+            Instant.now(),
+            fileIdService.find(image.externalId()).orElse(null)
         );
+        recentSaves.put(new SaveKey(userId, image.externalId()), Boolean.TRUE);
+        return insertedId.isPresent() ? SaveResult.SAVED : SaveResult.ALREADY_SAVED;
     }
 
-    public List< SavedDto > findOrderedImages(long userId) {
-        return savedRepository.findByUserIdOrderByCreatedAtAsc(userId)
-            .stream()
-            .map(saved -> new SavedDto(
-                saved.getId(),
-                saved.getUserId(),
-                saved.getExternalId(),
-                saved.getImageUrl(),
-                saved.getCategoryName(),
-                saved.getCreatedAt()
-            ))
-            .toList();
+    public Optional< SavedPageDto > findFirstPage(long userId) {
+        return savedRepository.findFirstByUserIdOrderByCreatedAtAscIdAsc(userId)
+            .map(this::toPage);
+    }
+
+    public Optional< SavedPageDto > findPage(long userId, long savedId) {
+        return savedRepository.findByIdAndUserId(savedId, userId)
+            .map(this::toPage);
     }
 
     public boolean hasImages(long userId) {
         return savedRepository.existsByUserId(userId);
     }
 
-    public void removeImage(long id) {
-        savedRepository.deleteById(id);
+    @Transactional
+    public Optional< SavedPageDto > removeImage(long userId, long savedId) {
+        Optional< Saved > removed = savedRepository.deleteReturning(savedId, userId);
+        if (removed.isEmpty()) {
+            return findFirstPage(userId);
+        }
+        recentSaves.invalidate(new SaveKey(userId, removed.get().getExternalId()));
+
+        Instant createdAt = removed.get().getCreatedAt();
+        return firstOf(savedRepository.findNext(userId, createdAt, savedId, NEIGHBOUR))
+            .or(() -> firstOf(savedRepository.findPrevious(userId, createdAt, savedId, NEIGHBOUR)))
+            .map(this::toPage);
     }
 
-    @Transactional
-    public void clearImages(long userId) {
-        savedRepository.deleteByUserId(userId);
+    public long clearImages(long userId) {
+        long removed = 0;
+        int chunk;
+        do {
+            chunk = savedRepository.deleteChunkByUserId(userId, CLEAR_CHUNK_SIZE);
+            removed += chunk;
+        } while (chunk == CLEAR_CHUNK_SIZE);
+        recentSaves.asMap().keySet().removeIf(key -> key.userId() == userId);
+        return removed;
+    }
+
+    private SavedPageDto toPage(Saved saved) {
+        List< Long > prevIds = savedRepository.findPreviousIds(saved.getUserId(), saved.getCreatedAt(), saved.getId(), NEIGHBOUR);
+        List< Long > nextIds = savedRepository.findNextIds(saved.getUserId(), saved.getCreatedAt(), saved.getId(), NEIGHBOUR);
+        return new SavedPageDto(
+            toDto(saved),
+            firstOf(prevIds).orElse(null),
+            firstOf(nextIds).orElse(null)
+        );
+    }
+
+    private static < T > Optional< T > firstOf(List< T > list) {
+        return list.isEmpty() ? Optional.empty() : Optional.of(list.get(0));
+    }
+
+    private static SavedDto toDto(Saved saved) {
+        return new SavedDto(
+            saved.getId(),
+            saved.getUserId(),
+            saved.getExternalId(),
+            saved.getImageUrl(),
+            saved.getCategoryName(),
+            saved.getCreatedAt(),
+            saved.getFileId()
+        );
+    }
+
+    public enum SaveResult {
+        SAVED,
+        ALREADY_SAVED
+    }
+
+    private record SaveKey(long userId, String externalId) {
+
     }
 
 }
@@ -0,0 +1,233 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.common.Fingerprints;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+@Service
+public class SeenImageFilter {
+
+    private static final int MAGIC = 0x4B4B5346;
+    private static final int FILE_HEADER_BYTES = 16;
+    // owner user id, insertions into the current generation, current generation index, last add time
+    private static final int SLOT_HEADER_BYTES = 24;
+    private static final int OWNER_OFFSET = 0;
+    private static final int COUNT_OFFSET = 8;
+    private static final int GENERATION_OFFSET = 12;
+    private static final int LAST_USED_OFFSET = 16;
+    // a user may take any slot of their bucket, so only a full bucket of active users evicts someone
+    private static final int WAYS = 4;
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_HASHES = 16;
+
+    private final int slots;
+    private final int ways;
+    private final int buckets;
+    private final int bitsPerGeneration;
+    private final int bytesPerGeneration;
+    private final int slotBytes;
+    private final int rotation;
+    private final int hashCount;
+    private final MappedByteBuffer buffer;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private final LongAdder evictions = new LongAdder();
+
+    public SeenImageFilter(CacheConfig cacheConfig) {
+        this.slots = cacheConfig.getSeenFilterUsers();
+        this.bitsPerGeneration = cacheConfig.getSeenFilterBits();
+        this.rotation = cacheConfig.getSeenFilterRotation();
+        this.ways = Math.min(WAYS, slots);
+        this.buckets = slots / ways;
+        if (Integer.bitCount(bitsPerGeneration) != 1 || bitsPerGeneration < Long.SIZE) {
+            throw new IllegalArgumentException("Seen filter bits must be a power of two not less than 64");
+        }
+        this.bytesPerGeneration = bitsPerGeneration / Byte.SIZE;
+        this.slotBytes = SLOT_HEADER_BYTES + 2 * bytesPerGeneration;
+        this.hashCount = Math.max(1, Math.min(MAX_HASHES, (int) Math.round((double) bitsPerGeneration / rotation * Math.log(2))));
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        long size = FILE_HEADER_BYTES + (long) slots * slotBytes;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Seen filter file must not exceed 2 GiB, got " + size + " bytes");
+        }
+        Path path = Path.of(cacheConfig.getSeenFilterPath());
+        try {
+            this.buffer = map(path, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map seen filter at " + path, e);
+        }
+        log.info("Seen filter mapped at {}: users={}, ways={}, bits={}, hashes={}, falsePositiveRate~{}",
+            path, slots, ways, bitsPerGeneration, hashCount, falsePositiveRate());
+    }
+
+    public boolean mightContain(long userId, @NonNull String externalId) {
+        long fingerprint = Fingerprints.of(externalId);
+        int bucket = bucketOf(userId);
+        synchronized (locks[bucket % LOCK_STRIPES]) {
+            int base = findSlot(bucket, userId);
+            if (base < 0) {
+                return false;
+            }
+            return containsIn(base, 0, fingerprint) || containsIn(base, 1, fingerprint);
+        }
+    }
+
+    // returns false when the image was probably added before, its bits are then left as they are
+    public boolean add(long userId, @NonNull String externalId) {
+        long fingerprint = Fingerprints.of(externalId);
+        int bucket = bucketOf(userId);
+        synchronized (locks[bucket % LOCK_STRIPES]) {
+            int base = findSlot(bucket, userId);
+            if (base < 0) {
+                base = claimSlot(bucket, userId);
+            }
+            buffer.putLong(base + LAST_USED_OFFSET, System.currentTimeMillis());
+            if (containsIn(base, 0, fingerprint) || containsIn(base, 1, fingerprint)) {
+                return false;
+            }
+            int generation = buffer.getInt(base + GENERATION_OFFSET);
+            int count = buffer.getInt(base + COUNT_OFFSET);
+            if (count >= rotation) {
+                // the older generation is forgotten, so each user keeps between one and two generations of history
+                generation ^= 1;
+                clear(base, generation);
+                count = 0;
+                buffer.putInt(base + GENERATION_OFFSET, generation);
+            }
+            int offset = generationOffset(base, generation);
+            long secondary = Fingerprints.mix(fingerprint) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                int bit = (int) (fingerprint + i * secondary) & (bitsPerGeneration - 1);
+                int index = offset + (bit >>> 3);
+                buffer.put(index, (byte) (buffer.get(index) | (1 << (bit & 7))));
+            }
+            buffer.putInt(base + COUNT_OFFSET, count + 1);
+            return true;
+        }
+    }
+
+    public double falsePositiveRate() {
+        // checked against two generations, each holding at most `rotation` images
+        double perGeneration = Math.pow(1 - Math.exp(-(double) hashCount * rotation / bitsPerGeneration), hashCount);
+        return 1 - Math.pow(1 - perGeneration, 2);
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @PreDestroy
+    private void flush() {
+        buffer.force();
+        log.info("Seen filter stats: evictions={}", getEvictionCount());
+    }
+
+    private MappedByteBuffer map(Path path, long size) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // a file of another size is recreated, the mapping then extends it with zeros;
+            // bits written with another rotation use another hash count and are reset as well
+            boolean sameSize = channel.size() == size;
+            if (!sameSize) {
+                channel.truncate(0);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (!sameSize || mapped.getInt(0) != MAGIC || mapped.getInt(4) != slots || mapped.getInt(8) != bitsPerGeneration
+                || mapped.getInt(12) != rotation) {
+                if (sameSize) {
+                    for (int i = 0; i < size; i += Long.BYTES) {
+                        mapped.putLong(i, 0L);
+                    }
+                }
+                mapped.putInt(0, MAGIC);
+                mapped.putInt(4, slots);
+                mapped.putInt(8, bitsPerGeneration);
+                mapped.putInt(12, rotation);
+                log.info("Initialized new seen filter at {}", path);
+            }
+            return mapped;
+        }
+    }
+
+    private boolean containsIn(int base, int generation, long fingerprint) {
+        int offset = generationOffset(base, generation);
+        long secondary = Fingerprints.mix(fingerprint) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (int) (fingerprint + i * secondary) & (bitsPerGeneration - 1);
+            if ((buffer.get(offset + (bit >>> 3)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int findSlot(int bucket, long userId) {
+        for (int way = 0; way < ways; way++) {
+            int base = offsetOf(bucket * ways + way);
+            if (buffer.getLong(base + LAST_USED_OFFSET) != 0 && buffer.getLong(base + OWNER_OFFSET) == userId) {
+                return base;
+            }
+        }
+        return -1;
+    }
+
+    // takes a free slot of the bucket, or the least recently used one when the bucket is full
+    private int claimSlot(int bucket, long userId) {
+        int victim = offsetOf(bucket * ways);
+        for (int way = 1; way < ways; way++) {
+            int base = offsetOf(bucket * ways + way);
+            if (buffer.getLong(base + LAST_USED_OFFSET) < buffer.getLong(victim + LAST_USED_OFFSET)) {
+                victim = base;
+            }
+        }
+        if (buffer.getLong(victim + LAST_USED_OFFSET) != 0) {
+            evictions.increment();
+            log.debug("Seen filter evicted user {} in favor of user {}", buffer.getLong(victim + OWNER_OFFSET), userId);
+        }
+        clear(victim, 0);
+        clear(victim, 1);
+        buffer.putLong(victim + OWNER_OFFSET, userId);
+        buffer.putInt(victim + COUNT_OFFSET, 0);
+        buffer.putInt(victim + GENERATION_OFFSET, 0);
+        return victim;
+    }
+
+    private void clear(int base, int generation) {
+        int offset = generationOffset(base, generation);
+        for (int i = 0; i < bytesPerGeneration; i += Long.BYTES) {
+            buffer.putLong(offset + i, 0L);
+        }
+    }
+
+    private int bucketOf(long userId) {
+        return (int) Long.remainderUnsigned(Fingerprints.mix(userId), buckets);
+    }
+
+    private int offsetOf(int slot) {
+        return FILE_HEADER_BYTES + slot * slotBytes;
+    }
+
+    private int generationOffset(int base, int generation) {
+        return base + SLOT_HEADER_BYTES + generation * bytesPerGeneration;
+    }
+
+}
@@ -0,0 +1,131 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.common.TokenBucket;
+import ru.spbstu.ssa.kawaiikeeper.config.SendingConfig;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Service
+public class SendScheduler {
+
+    private static final long IDLE_CLEANUP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final SendingConfig sendingConfig;
+    private final ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("send-scheduler-"));
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    // Everything below is confined to the scheduler thread
+    private final Queue< Pending > queue = new ArrayDeque<>();
+    private final Map< Object, TokenBucket > chatBuckets = new HashMap<>();
+    private final TokenBucket globalBucket;
+    private long nextDrainAt;
+    private boolean drainScheduled;
+    private long lastCleanupAt;
+
+    public SendScheduler(SendingConfig sendingConfig) {
+        this.sendingConfig = sendingConfig;
+        long now = System.nanoTime();
+        this.globalBucket = new TokenBucket(sendingConfig.getGlobalRate(), sendingConfig.getGlobalBurst(), now);
+        this.lastCleanupAt = now;
+    }
+
+    public CompletableFuture< Void > acquire(@Nullable Object chatId) {
+        Pending pending = new Pending(chatId, new CompletableFuture<>());
+        queueDepth.incrementAndGet();
+        executor.execute(() -> {
+            queue.add(pending);
+            drain();
+        });
+        return pending.permit;
+    }
+
+    public void backOff(@Nullable Object chatId, Duration retryAfter) {
+        executor.execute(() -> {
+            long now = System.nanoTime();
+            TokenBucket bucket = (chatId == null) ? globalBucket : chatBucketOf(chatId, now);
+            bucket.pauseFor(retryAfter.toNanos(), now);
+        });
+    }
+
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    @PreDestroy
+    private void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void drain() {
+        drainScheduled = false;
+        long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+
+        Iterator< Pending > iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            long globalWait = globalBucket.nanosUntilAvailable(now);
+            if (globalWait > 0) {
+                wait = globalWait;
+                break;
+            }
+            Pending pending = iterator.next();
+            if (pending.chatId != null) {
+                TokenBucket chatBucket = chatBucketOf(pending.chatId, now);
+                if (!chatBucket.tryConsume(now)) {
+                    wait = Math.min(wait, chatBucket.nanosUntilAvailable(now));
+                    continue;
+                }
+            }
+            globalBucket.tryConsume(now);
+            iterator.remove();
+            queueDepth.decrementAndGet();
+            pending.permit.complete(null);
+        }
+
+        if (now - lastCleanupAt > IDLE_CLEANUP_INTERVAL_NANOS) {
+            chatBuckets.values().removeIf(bucket -> bucket.isFull(now));
+            lastCleanupAt = now;
+        }
+        if (!queue.isEmpty()) {
+            scheduleDrain(now, wait);
+        }
+    }
+
+    private void scheduleDrain(long now, long wait) {
+        if (drainScheduled && nextDrainAt - (now + wait) <= 0) {
+            return;
+        }
+        drainScheduled = true;
+        nextDrainAt = now + wait;
+        executor.schedule(this::drain, wait, TimeUnit.NANOSECONDS);
+    }
+
+    private TokenBucket chatBucketOf(Object chatId, long now) {
+        return chatBuckets.computeIfAbsent(
+            chatId,
+            id -> new TokenBucket(sendingConfig.getChatRate(), sendingConfig.getChatBurst(), now)
+        );
+    }
+
+    private record Pending(@Nullable Object chatId, CompletableFuture< Void > permit) {
+
+    }
+
+}
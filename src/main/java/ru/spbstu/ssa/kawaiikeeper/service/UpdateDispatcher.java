@@ -0,0 +1,79 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.model.CallbackQuery;
+import com.pengrad.telegrambot.model.Update;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import ru.spbstu.ssa.kawaiikeeper.config.DispatchConfig;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+public class UpdateDispatcher {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    // Each stripe is a single thread, so updates of one chat are handled strictly in arrival order
+    private final ExecutorService[] stripes;
+
+    public UpdateDispatcher(DispatchConfig dispatchConfig) {
+        this.stripes = new ExecutorService[dispatchConfig.getWorkerCount()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("update-" + i + "-"));
+        }
+    }
+
+    public void dispatch(@NonNull List< Update > updates, @NonNull Consumer< ? super Update > handler) {
+        CompletableFuture< ? >[] pending = updates.stream()
+            .map(update -> CompletableFuture.runAsync(() -> handleSafely(update, handler), stripeOf(update)))
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(pending).join();
+    }
+
+    @PreDestroy
+    private void shutdown() throws InterruptedException {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdown();
+        }
+        for (ExecutorService stripe : stripes) {
+            if (!stripe.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                stripe.shutdownNow();
+            }
+        }
+    }
+
+    private void handleSafely(Update update, Consumer< ? super Update > handler) {
+        try {
+            handler.accept(update);
+        } catch (Exception e) {
+            log.error("Failed to handle update {}", update.updateId(), e);
+        }
+    }
+
+    private ExecutorService stripeOf(Update update) {
+        return stripes[Math.floorMod(Long.hashCode(chatIdOf(update)), stripes.length)];
+    }
+
+    static long chatIdOf(@NonNull Update update) {
+        if (update.message() != null) {
+            return update.message().chat().id();
+        }
+        CallbackQuery query = update.callbackQuery();
+        if (query != null) {
+            return (query.maybeInaccessibleMessage() != null)
+                ? query.maybeInaccessibleMessage().chat().id()
+                : query.from().id();
+        }
+        return 0L;
+    }
+
+}
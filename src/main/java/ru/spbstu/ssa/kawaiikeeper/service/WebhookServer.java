@@ -0,0 +1,119 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.model.Update;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import ru.spbstu.ssa.kawaiikeeper.config.DispatchConfig;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class WebhookServer {
+
+    static final String SECRET_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final DispatchConfig dispatchConfig;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public synchronized void start(@NonNull Consumer< List< Update > > updatesConsumer) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("Webhook server is already running");
+        }
+        if (!StringUtils.hasText(dispatchConfig.getWebhookSecret())) {
+            throw new IllegalStateException("Webhook secret must be specified in webhook mode");
+        }
+
+        executor = Executors.newFixedThreadPool(
+            dispatchConfig.getWebhookMaxConnections(),
+            new CustomizableThreadFactory("webhook-")
+        );
+        server = HttpServer.create(new InetSocketAddress(dispatchConfig.getWebhookPort()), 0);
+        server.createContext(dispatchConfig.getWebhookPath(), exchange -> handle(exchange, updatesConsumer));
+        server.setExecutor(executor);
+        server.start();
+        log.info("Webhook server listening on port {}", getPort());
+    }
+
+    public synchronized int getPort() {
+        if (server == null) {
+            throw new IllegalStateException("Webhook server is not running");
+        }
+        return server.getAddress().getPort();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+        server = null;
+        executor = null;
+    }
+
+    private void handle(HttpExchange exchange, Consumer< List< Update > > updatesConsumer) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            if (!isSecretValid(exchange.getRequestHeaders().getFirst(SECRET_HEADER))) {
+                log.warn("Rejected webhook request from {}", exchange.getRemoteAddress());
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            Update update;
+            try (Reader body = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                update = BotUtils.parseUpdate(body);
+            } catch (RuntimeException e) {
+                log.warn("Malformed webhook update", e);
+                update = null;
+            }
+            if (update == null) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+
+            updatesConsumer.accept(List.of(update));
+            exchange.sendResponseHeaders(200, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isSecretValid(String received) {
+        if (received == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+            dispatchConfig.getWebhookSecret().getBytes(StandardCharsets.UTF_8),
+            received.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+}
@@ -0,0 +1,18 @@
+create table if not exists category
+(
+    user_id       bigint       not null,
+    category_name varchar(255),
+    constraint category_pkey primary key (user_id)
+);
+
+create table if not exists saved
+(
+    id            bigint generated by default as identity,
+    user_id       bigint                      not null,
+    external_id   varchar(255)                not null,
+    image_url     varchar(255)                not null,
+    category_name varchar(255)                not null,
+    created_at    timestamp(6) with time zone not null,
+    constraint saved_pkey primary key (id),
+    constraint uk_user_external unique (user_id, external_id)
+);
@@ -0,0 +1,2 @@
+-- collection listing, existence checks and keyset navigation; id makes neighbour lookups index-only
+create index if not exists ix_saved_user_created_id on saved (user_id, created_at, id);
@@ -0,0 +1,9 @@
+create table if not exists outbox
+(
+    id         bigint generated by default as identity,
+    chat_id    bigint                      not null,
+    method     varchar(64)                 not null,
+    payload    text                        not null,
+    created_at timestamp(6) with time zone not null,
+    constraint outbox_pkey primary key (id)
+);
@@ -0,0 +1,6 @@
+-- ids come from a pooled sequence so Hibernate can batch inserts; every nextval reserves a block of 50 ids,
+-- and inserts relying on the column default simply take a fresh block start
+alter table saved alter column id drop identity if exists;
+create sequence if not exists saved_id_seq increment by 50 owned by saved.id;
+select setval('saved_id_seq', coalesce((select max(id) from saved), 0) + 1, false);
+alter table saved alter column id set default nextval('saved_id_seq');
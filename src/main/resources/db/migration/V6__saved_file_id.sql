@@ -0,0 +1,4 @@
+-- V1 mirrors the pre-Flyway schema that existing databases are baselined at; databases that already
+-- got these from ddl-auto keep them
+alter table saved add column if not exists file_id varchar(255);
+create index if not exists ix_saved_external_id on saved (external_id);
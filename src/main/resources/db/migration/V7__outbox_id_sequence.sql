@@ -0,0 +1,5 @@
+-- replies of one update are persisted together, a pooled sequence lets Hibernate send them as one batch
+alter table outbox alter column id drop identity if exists;
+create sequence if not exists outbox_id_seq increment by 50 owned by outbox.id;
+select setval('outbox_id_seq', coalesce((select max(id) from outbox), 0) + 1, false);
+alter table outbox alter column id set default nextval('outbox_id_seq');
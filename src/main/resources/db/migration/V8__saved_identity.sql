@@ -0,0 +1,6 @@
+-- saved rows are only written by the native upsert, which Hibernate never batches; the pooled sequence from V5
+-- only made every insert attempt reserve a block of 50 ids, so the column goes back to an identity
+alter table saved alter column id drop default;
+drop sequence if exists saved_id_seq;
+alter table saved alter column id add generated by default as identity;
+select setval(pg_get_serial_sequence('saved', 'id'), coalesce((select max(id) from saved), 0) + 1, false);
@@ -0,0 +1,4 @@
+-- every row is leased to the instance sending it; rows whose lease lapsed are claimed by the next poll
+alter table outbox add column if not exists lease_owner varchar(64);
+alter table outbox add column if not exists lease_until timestamp(6) with time zone not null default now();
+create index if not exists ix_outbox_lease_until on outbox (lease_until);
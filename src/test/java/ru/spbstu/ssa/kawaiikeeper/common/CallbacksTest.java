@@ -74,6 +74,38 @@ class CallbacksTest {
         assertFalse(result.isPresent());
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "saved_page.42, 42",
+        "saved_remove.-7, -7",
+        "saved_page.9007199254740993, 9007199254740993"
+    })
+    void longDataOf_shouldParsePayloadInPlace(String callback, long expected) {
+        assertEquals(expected, Callbacks.longDataOf(callback));
+    }
+
+    @Test
+    void intDataOf_shouldParsePayloadInPlace() {
+        assertEquals(3, Callbacks.intDataOf("category_page.3"));
+    }
+
+    @Test
+    void stringDataOf_shouldReturnEverythingAfterFirstDelimiter() {
+        assertEquals("part1.part2", Callbacks.stringDataOf("action.part1.part2"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "no_delimiter", "" })
+    void payloadReaders_withoutDelimiter_shouldThrow(String callback) {
+        assertThrows(IllegalArgumentException.class, () -> Callbacks.longDataOf(callback));
+        assertThrows(IllegalArgumentException.class, () -> Callbacks.stringDataOf(callback));
+    }
+
+    @Test
+    void longDataOf_withNonNumericPayload_shouldThrow() {
+        assertThrows(NumberFormatException.class, () -> Callbacks.longDataOf("saved_page.abc"));
+    }
+
     @ParameterizedTest
     @CsvSource({
         "action.data, action",
@@ -100,6 +132,20 @@ class CallbacksTest {
         assertEquals(callback, result);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "action.data, 6",
+        "simple., 6",
+        "no_delimiter, 12",
+        "'', 0"
+    })
+    void identifierEnd_shouldPointAfterIdentifier(String callback, int expectedEnd) {
+        int result = Callbacks.identifierEnd(callback);
+
+        assertEquals(expectedEnd, result);
+        assertEquals(Callbacks.identifierOf(callback), callback.substring(0, result));
+    }
+
     @Test
     void callback_withEmptyDataString_shouldWorkCorrectly() {
         String identifier = "test";
@@ -0,0 +1,50 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryCatalogTest {
+
+    @Test
+    void ordinalOf_shouldResolveEveryNameToItsPosition() {
+        List< String > names = IntStream.range(0, 200).mapToObj(i -> "category-" + i).toList();
+        CategoryCatalog catalog = new CategoryCatalog(names);
+
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(i, catalog.ordinalOf(names.get(i)).orElseThrow());
+            assertEquals(names.get(i), catalog.nameOf(i));
+        }
+    }
+
+    @Test
+    void ordinalOf_whenNameIsUnknown_shouldReturnEmpty() {
+        CategoryCatalog catalog = new CategoryCatalog(List.of("random", "catgirl", "foxgirl"));
+
+        assertTrue(catalog.ordinalOf("wolf-girl").isEmpty());
+        assertFalse(catalog.contains("Catgirl"));
+        assertTrue(catalog.contains("catgirl"));
+    }
+
+    @Test
+    void defaultName_shouldBeFirstName() {
+        CategoryCatalog catalog = new CategoryCatalog(List.of("random", "catgirl"));
+
+        assertEquals("random", catalog.defaultName());
+        assertEquals(List.of("random", "catgirl"), catalog.names());
+        assertEquals(2, catalog.size());
+    }
+
+    @Test
+    void constructor_whenNamesAreEmpty_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new CategoryCatalog(List.of()));
+    }
+
+    @Test
+    void constructor_whenNamesContainDuplicates_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new CategoryCatalog(List.of("cute", "tail", "cute")));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void onFailure_afterThreshold_shouldOpenCircuit() {
+        CircuitBreaker breaker = new CircuitBreaker(3, SECOND);
+
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertTrue(breaker.tryAcquire(0));
+        breaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(0));
+    }
+
+    @Test
+    void onSuccess_shouldResetConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(2, SECOND);
+
+        breaker.onFailure(0);
+        breaker.onSuccess();
+        breaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void tryAcquire_afterOpenDuration_shouldAllowSingleTrial() {
+        CircuitBreaker breaker = new CircuitBreaker(1, SECOND);
+        breaker.onFailure(0);
+
+        assertTrue(breaker.tryAcquire(SECOND));
+        assertFalse(breaker.tryAcquire(SECOND));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void trialOutcome_shouldCloseOrReopenCircuit() {
+        CircuitBreaker closing = new CircuitBreaker(1, SECOND);
+        closing.onFailure(0);
+        closing.tryAcquire(SECOND);
+        closing.onSuccess();
+
+        CircuitBreaker reopening = new CircuitBreaker(1, SECOND);
+        reopening.onFailure(0);
+        reopening.tryAcquire(SECOND);
+        reopening.onFailure(SECOND);
+
+        assertEquals(CircuitBreaker.State.CLOSED, closing.getState());
+        assertEquals(CircuitBreaker.State.OPEN, reopening.getState());
+        assertFalse(reopening.tryAcquire(SECOND + SECOND / 2));
+    }
+
+}
@@ -0,0 +1,70 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandsTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/start", "/start@kawaii_bot", "/saved 12" })
+    void isCommand_withCommandText_shouldReturnTrue(String text) {
+        assertTrue(Commands.isCommand(text));
+    }
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    @ValueSource(strings = { "/", "start", "hello /start" })
+    void isCommand_withOtherText_shouldReturnFalse(String text) {
+        assertFalse(Commands.isCommand(text));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "/start, start",
+        "/start@kawaii_bot, start",
+        "/saved 12, saved",
+        "/category@kawaii_bot cute, category"
+    })
+    void nameEnd_shouldPointAfterCommandName(String text, String expectedName) {
+        String result = text.substring(Commands.nameStart(), Commands.nameEnd(text));
+
+        assertEquals(expectedName, result);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/start", "/start@kawaii_bot", "/start@Kawaii_Bot", "/start@kawaii_bot args" })
+    void isAddressedTo_withoutMentionOrWithOwnMention_shouldReturnTrue(String text) {
+        assertTrue(Commands.isAddressedTo(text, "kawaii_bot"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/start@other_bot", "/start@kawaii_bot2", "/start@kawaii" })
+    void isAddressedTo_withForeignMention_shouldReturnFalse(String text) {
+        assertFalse(Commands.isAddressedTo(text, "kawaii_bot"));
+    }
+
+    @Test
+    void isAddressedTo_withUnknownBotUsername_shouldAcceptAnyMention() {
+        assertTrue(Commands.isAddressedTo("/start@other_bot", null));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "/saved 12, 12",
+        "/category@kawaii_bot   cute girl , cute girl"
+    })
+    void argumentsOf_withArguments_shouldReturnThem(String text, String expectedArguments) {
+        assertEquals(expectedArguments, Commands.argumentsOf(text).orElseThrow());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "/start", "/start@kawaii_bot", "/start   " })
+    void argumentsOf_withoutArguments_shouldReturnEmpty(String text) {
+        assertTrue(Commands.argumentsOf(text).isEmpty());
+    }
+}
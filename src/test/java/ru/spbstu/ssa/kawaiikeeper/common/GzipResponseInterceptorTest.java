@@ -0,0 +1,54 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GzipResponseInterceptorTest {
+
+    private final GzipResponseInterceptor interceptor = new GzipResponseInterceptor();
+
+    @Test
+    void intercept_shouldAdvertiseGzipAndDecompressBody() throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("/images/cats"));
+        MockClientHttpResponse compressed = new MockClientHttpResponse(gzip("{\"id\":\"img_1\"}"), HttpStatus.OK);
+        compressed.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, body) -> compressed);
+
+        assertEquals("gzip", request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("{\"id\":\"img_1\"}", new String(response.getBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void intercept_shouldPassThroughUncompressedBody() throws IOException {
+        MockClientHttpRequest request = new MockClientHttpRequest(HttpMethod.GET, URI.create("/images/cats"));
+        MockClientHttpResponse plain = new MockClientHttpResponse("plain".getBytes(StandardCharsets.UTF_8), HttpStatus.OK);
+
+        ClientHttpResponse response = interceptor.intercept(request, new byte[0], (req, body) -> plain);
+
+        assertSame(plain, response);
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,25 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyTrackerTest {
+
+    @Test
+    void percentile_withoutSamples_shouldBeNegative() {
+        assertEquals(-1, new LatencyTracker(8).percentile(0.95));
+    }
+
+    @Test
+    void percentile_shouldUseOnlyRecentWindow() {
+        LatencyTracker tracker = new LatencyTracker(4);
+        for (long sample = 1; sample <= 100; sample++) {
+            tracker.record(sample);
+        }
+
+        assertEquals(97, tracker.percentile(0.0));
+        assertEquals(100, tracker.percentile(0.95));
+    }
+
+}
@@ -0,0 +1,63 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteTableTest {
+
+    @Test
+    void find_withKnownName_shouldReturnRoute() {
+        RouteTable< Integer > table = new RouteTable<>(Map.of("feed_next", 1, "feed_save", 2));
+
+        RouteTable.Route< Integer > route = table.find("feed_save");
+
+        assertNotNull(route);
+        assertEquals("feed_save", route.name());
+        assertEquals(2, route.handler());
+    }
+
+    @Test
+    void find_withRegion_shouldMatchOnlyRegion() {
+        RouteTable< Integer > table = new RouteTable<>(Map.of("saved_page", 1));
+        String callback = "saved_page.42";
+
+        RouteTable.Route< Integer > route = table.find(callback, 0, Callbacks.identifierEnd(callback));
+
+        assertNotNull(route);
+        assertEquals(1, route.handler());
+    }
+
+    @Test
+    void find_withUnknownOrPartialName_shouldReturnNull() {
+        RouteTable< Integer > table = new RouteTable<>(Map.of("saved_page", 1));
+
+        assertNull(table.find("unknown"));
+        assertNull(table.find("saved"));
+        assertNull(table.find("saved_page_extra"));
+        assertNull(table.find(""));
+    }
+
+    @Test
+    void find_withEmptyTable_shouldReturnNull() {
+        RouteTable< Integer > table = new RouteTable<>(Map.of());
+
+        assertNull(table.find("start"));
+        assertTrue(table.names().isEmpty());
+    }
+
+    @Test
+    void find_withManyRoutes_shouldResolveEveryRoute() {
+        Map< String, Integer > routes = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            routes.put("route_" + i, i);
+        }
+        RouteTable< Integer > table = new RouteTable<>(routes);
+
+        routes.forEach((name, handler) -> assertEquals(handler, table.find(name).handler()));
+        assertEquals(routes.size(), table.names().size());
+    }
+}
@@ -0,0 +1,65 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void execute_withConcurrentSameKey_shouldShareOneCall() throws Exception {
+        SingleFlight< String, String > flights = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture< String > leader = CompletableFuture.supplyAsync(() -> flights.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "value";
+        }));
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        AtomicReference< String > followerResult = new AtomicReference<>();
+        Thread follower = new Thread(() -> followerResult.set(flights.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        })));
+        follower.start();
+        while (follower.getState() != Thread.State.WAITING && follower.isAlive()) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        follower.join(1000);
+
+        assertEquals("value", leader.get(1, TimeUnit.SECONDS));
+        assertEquals("value", followerResult.get());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_whenCallFails_shouldRethrowAndForgetKey() {
+        SingleFlight< String, String > flights = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> flights.execute("key", () -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals("retry", flights.execute("key", () -> "retry"));
+        assertEquals(0, flights.inFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
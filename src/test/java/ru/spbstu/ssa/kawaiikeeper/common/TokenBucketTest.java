@@ -0,0 +1,70 @@
+package ru.spbstu.ssa.kawaiikeeper.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void tryConsume_withinCapacity_shouldSucceed() {
+        TokenBucket bucket = new TokenBucket(1, 3, 0);
+
+        assertTrue(bucket.tryConsume(0));
+        assertTrue(bucket.tryConsume(0));
+        assertTrue(bucket.tryConsume(0));
+        assertFalse(bucket.tryConsume(0));
+    }
+
+    @Test
+    void nanosUntilAvailable_whenEmpty_shouldReturnRefillTime() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        bucket.tryConsume(0);
+
+        assertEquals(SECOND / 2, bucket.nanosUntilAvailable(0), 1);
+        assertEquals(0, bucket.nanosUntilAvailable(SECOND / 2 + 1));
+    }
+
+    @Test
+    void tryConsume_afterRefill_shouldNotExceedCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 2, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        long later = 10 * SECOND;
+
+        assertTrue(bucket.tryConsume(later));
+        assertTrue(bucket.tryConsume(later));
+        assertFalse(bucket.tryConsume(later));
+    }
+
+    @Test
+    void pauseFor_shouldBlockUntilPauseElapsed() {
+        TokenBucket bucket = new TokenBucket(100, 10, 0);
+
+        bucket.pauseFor(5 * SECOND, 0);
+
+        assertFalse(bucket.tryConsume(SECOND));
+        assertEquals(4 * SECOND, bucket.nanosUntilAvailable(SECOND));
+        assertTrue(bucket.tryConsume(5 * SECOND));
+    }
+
+    @Test
+    void isFull_shouldReflectConsumedTokens() {
+        TokenBucket bucket = new TokenBucket(1, 2, 0);
+
+        assertTrue(bucket.isFull(0));
+        bucket.tryConsume(0);
+        assertFalse(bucket.isFull(0));
+        assertTrue(bucket.isFull(2 * SECOND));
+    }
+
+    @Test
+    void constructor_withNonPositiveRate_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, 0));
+    }
+}
@@ -0,0 +1,25 @@
+package ru.spbstu.ssa.kawaiikeeper.entity;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryOrdinalConverterTest {
+
+    private final CategoryOrdinalConverter converter =
+        new CategoryOrdinalConverter(new CategoryCatalog(List.of("random", "catgirl", "foxgirl")));
+
+    @Test
+    void convertToEntityAttribute_shouldResolveStoredOrdinal() {
+        assertEquals("catgirl", converter.convertToEntityAttribute((short) 1));
+    }
+
+    @Test
+    void convertToEntityAttribute_whenOrdinalIsOutsideCatalog_shouldUseDefaultCategory() {
+        assertEquals("random", converter.convertToEntityAttribute((short) 7));
+    }
+
+}
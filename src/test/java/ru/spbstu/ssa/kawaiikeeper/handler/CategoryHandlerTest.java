@@ -12,7 +12,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.spbstu.ssa.kawaiikeeper.common.Callbacks;
-import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
 import ru.spbstu.ssa.kawaiikeeper.service.CategoryService;
 
@@ -31,9 +31,6 @@ class CategoryHandlerTest {
     @Mock
     private CategoryService categoryService;
 
-    @Mock
-    private ApiConfig apiConfig;
-
     @Mock
     private Message message;
 
@@ -54,8 +51,7 @@ class CategoryHandlerTest {
     @BeforeEach
     void setUp() {
         List< String > categories = List.of("Cat1", "Cat2", "Cat3", "Cat4", "Cat5", "Cat6", "Cat7", "Cat8", "Cat9");
-        when(apiConfig.getApiCategories()).thenReturn(categories);
-        categoryHandler = new CategoryHandler(categoryService, apiConfig);
+        categoryHandler = new CategoryHandler(categoryService, new CategoryCatalog(categories));
     }
 
     @Test
@@ -125,6 +121,29 @@ class CategoryHandlerTest {
         assertInstanceOf(InlineKeyboardMarkup.class, editMessage.getParameters().get("reply_markup"));
     }
 
+    @Test
+    void handleSetPage_shouldServeSharedPrecomputedKeyboard() {
+        when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
+        when(inaccessibleMessage.chat()).thenReturn(chat);
+        when(chat.id()).thenReturn(123L);
+        when(callbackQuery.data()).thenReturn(Callbacks.callback("category_page", "0"));
+        when(message.chat()).thenReturn(chat);
+
+        Object fromCommand = categoryHandler.handleCategory(message).get(0).getParameters().get("reply_markup");
+        Object fromCallback = categoryHandler.handleSetPage(callbackQuery).get(0).getParameters().get("reply_markup");
+
+        assertSame(fromCommand, fromCallback);
+    }
+
+    @Test
+    void handleSetPage_whenPageIsOutOfRange_shouldThrowIndexOutOfBounds() {
+        when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
+        when(inaccessibleMessage.chat()).thenReturn(chat);
+        when(callbackQuery.data()).thenReturn(Callbacks.callback("category_page", "2"));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> categoryHandler.handleSetPage(callbackQuery));
+    }
+
     @Test
     void handleSetPage_withInvalidCallbackData_shouldThrowException() {
         when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
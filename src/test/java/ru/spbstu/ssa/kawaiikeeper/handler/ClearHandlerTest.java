@@ -138,6 +138,8 @@ class ClearHandlerTest {
         when(callbackQuery.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
 
+        when(savedService.clearImages(userId)).thenReturn(3L);
+
         List< SendMessage > result = clearHandler.handleClearConfirm(callbackQuery);
 
         assertNotNull(result);
@@ -145,12 +147,29 @@ class ClearHandlerTest {
 
         SendMessage sendMessage = result.get(0);
         assertEquals(chatId, sendMessage.getParameters().get("chat_id"));
-        assertEquals("Ваша коллекция была очищена. Надеемся вы найдете что-то более стоящее!",
+        assertEquals("Ваша коллекция была очищена (удалено изображений: 3). Надеемся вы найдете что-то более стоящее!",
             sendMessage.getParameters().get("text"));
 
         verify(savedService).clearImages(userId);
     }
 
+    @Test
+    void handleClearConfirm_whenNothingRemoved_shouldReturnEmptyCollectionMessage() {
+        long chatId = 123L;
+        long userId = 456L;
+
+        when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
+        when(inaccessibleMessage.chat()).thenReturn(chat);
+        when(chat.id()).thenReturn(chatId);
+        when(callbackQuery.from()).thenReturn(user);
+        when(user.id()).thenReturn(userId);
+        when(savedService.clearImages(userId)).thenReturn(0L);
+
+        List< SendMessage > result = clearHandler.handleClearConfirm(callbackQuery);
+
+        assertEquals("Ваша коллекция и так пуста...", result.get(0).getParameters().get("text"));
+    }
+
     @Test
     void handleClearConfirm_shouldLogClearAction() {
         long chatId = 123L;
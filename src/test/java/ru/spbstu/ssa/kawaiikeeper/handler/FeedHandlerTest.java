@@ -11,13 +11,17 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.spbstu.ssa.kawaiikeeper.common.Callbacks;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
 import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
 import ru.spbstu.ssa.kawaiikeeper.entity.Category;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
+import ru.spbstu.ssa.kawaiikeeper.repository.SavedRepository;
 import ru.spbstu.ssa.kawaiikeeper.service.CategoryService;
-import ru.spbstu.ssa.kawaiikeeper.service.ImageService;
+import ru.spbstu.ssa.kawaiikeeper.service.FeedPrefetcher;
+import ru.spbstu.ssa.kawaiikeeper.service.FileIdService;
 import ru.spbstu.ssa.kawaiikeeper.service.SavedService;
 
 import java.util.List;
@@ -37,7 +41,7 @@ class FeedHandlerTest {
     private CategoryService categoryService;
 
     @Mock
-    private ImageService imageService;
+    private FeedPrefetcher feedPrefetcher;
 
     @Mock
     private SavedService savedService;
@@ -57,6 +61,9 @@ class FeedHandlerTest {
     @Mock
     private User user;
 
+    @Spy
+    private FileIdService fileIdService = new FileIdService(mock(SavedRepository.class), new CacheConfig());
+
     @InjectMocks
     private FeedHandler feedHandler;
 
@@ -92,11 +99,11 @@ class FeedHandlerTest {
         when(chat.id()).thenReturn(chatId);
         when(message.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
-        when(categoryService.hasCategory(userId)).thenReturn(false);
+        when(categoryService.findCategory(userId)).thenReturn(Optional.empty());
         when(categoryService.setDefaultCategory(userId)).thenReturn(defaultCategory);
 
         ImageDto mockImage = new ImageDto("image123", "http://example.com/image.jpg", "cute");
-        when(imageService.pollNext(any(Category.class))).thenReturn(mockImage);
+        when(feedPrefetcher.next(any(Category.class))).thenReturn(mockImage);
 
         List< ? extends BaseRequest< ?, ? > > result = feedHandler.handleStart(message);
 
@@ -113,9 +120,9 @@ class FeedHandlerTest {
         assertEquals(chatId, feedMessage.getParameters().get("chat_id"));
         assertEquals(mockImage.imageUrl(), feedMessage.getParameters().get("photo"));
 
-        verify(categoryService).hasCategory(userId);
+        verify(categoryService).findCategory(userId);
         verify(categoryService).setDefaultCategory(userId);
-        verify(imageService).pollNext(defaultCategory);
+        verify(feedPrefetcher).next(defaultCategory);
     }
 
     @Test
@@ -128,11 +135,10 @@ class FeedHandlerTest {
         when(chat.id()).thenReturn(chatId);
         when(message.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
-        when(categoryService.hasCategory(userId)).thenReturn(true);
         when(categoryService.findCategory(userId)).thenReturn(Optional.of(userCategory));
 
         ImageDto mockImage = new ImageDto("image456", "https://example.com/image2.jpg", "animals");
-        when(imageService.pollNext(userCategory)).thenReturn(mockImage);
+        when(feedPrefetcher.next(userCategory)).thenReturn(mockImage);
 
         List< ? extends BaseRequest< ?, ? > > result = feedHandler.handleStart(message);
 
@@ -144,30 +150,12 @@ class FeedHandlerTest {
         assertEquals(chatId, feedMessage.getParameters().get("chat_id"));
         assertEquals(mockImage.imageUrl(), feedMessage.getParameters().get("photo"));
 
-        verify(categoryService).hasCategory(userId);
         verify(categoryService).findCategory(userId);
-        verify(imageService).pollNext(userCategory);
+        verify(categoryService, never()).hasCategory(anyLong());
+        verify(feedPrefetcher).next(userCategory);
         verify(categoryService, never()).setDefaultCategory(anyLong());
     }
 
-    @Test
-    void handleStart_whenExistingUserButNoCategory_shouldThrowException() {
-        long chatId = 123L;
-        long userId = 456L;
-
-        when(message.chat()).thenReturn(chat);
-        when(chat.id()).thenReturn(chatId);
-        when(message.from()).thenReturn(user);
-        when(user.id()).thenReturn(userId);
-        when(categoryService.hasCategory(userId)).thenReturn(true);
-        when(categoryService.findCategory(userId)).thenReturn(Optional.empty());
-
-        assertThrows(RuntimeException.class, () -> feedHandler.handleStart(message));
-
-        verify(categoryService).hasCategory(userId);
-        verify(categoryService).findCategory(userId);
-    }
-
     @Test
     void handleNext_shouldReturnEditMediaAndCaption() {
         long chatId = 123L;
@@ -184,7 +172,7 @@ class FeedHandlerTest {
         when(categoryService.findCategory(userId)).thenReturn(Optional.of(userCategory));
 
         ImageDto mockImage = new ImageDto("image789", "https://example.com/image3.jpg", "nature");
-        when(imageService.pollNext(userCategory)).thenReturn(mockImage);
+        when(feedPrefetcher.next(userCategory)).thenReturn(mockImage);
 
         List< ? extends BaseRequest< ?, ? > > result = feedHandler.handleNext(callbackQuery);
 
@@ -205,7 +193,7 @@ class FeedHandlerTest {
         assertInstanceOf(InlineKeyboardMarkup.class, editCaption.getParameters().get("reply_markup"));
 
         verify(categoryService).findCategory(userId);
-        verify(imageService).pollNext(userCategory);
+        verify(feedPrefetcher).next(userCategory);
     }
 
     @Test
@@ -227,7 +215,7 @@ class FeedHandlerTest {
         assertEquals(chatId, exception.getChatId());
 
         verify(categoryService).findCategory(userId);
-        verify(imageService, never()).pollNext(any());
+        verify(feedPrefetcher, never()).next(any());
     }
 
     @Test
@@ -249,7 +237,7 @@ class FeedHandlerTest {
         String callbackData = Callbacks.callback("feed_save", imageId);
         when(callbackQuery.data()).thenReturn(callbackData);
 
-        doNothing().when(savedService).saveImage(userId, imageId);
+        when(savedService.saveImage(userId, imageId)).thenReturn(SavedService.SaveResult.SAVED);
 
         List< ? extends BaseRequest< ?, ? > > result = feedHandler.handleSave(callbackQuery);
 
@@ -270,6 +258,30 @@ class FeedHandlerTest {
         verify(savedService).saveImage(userId, imageId);
     }
 
+    @Test
+    void handleSave_whenAlreadySaved_shouldAnswerWithoutError() {
+        long chatId = 123L;
+        long userId = 456L;
+        int messageId = 789;
+        String imageId = "image123";
+
+        when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
+        when(inaccessibleMessage.chat()).thenReturn(chat);
+        when(inaccessibleMessage.messageId()).thenReturn(messageId);
+        when(chat.id()).thenReturn(chatId);
+        when(callbackQuery.from()).thenReturn(user);
+        when(user.id()).thenReturn(userId);
+        when(callbackQuery.id()).thenReturn("callback_123");
+        when(callbackQuery.data()).thenReturn(Callbacks.callback("feed_save", imageId));
+        when(savedService.saveImage(userId, imageId)).thenReturn(SavedService.SaveResult.ALREADY_SAVED);
+
+        List< ? extends BaseRequest< ?, ? > > result = feedHandler.handleSave(callbackQuery);
+
+        AnswerCallbackQuery answer = (AnswerCallbackQuery) result.get(0);
+        assertEquals("Изображение уже есть в вашей коллекции", answer.getParameters().get("text"));
+        assertInstanceOf(EditMessageReplyMarkup.class, result.get(1));
+    }
+
     @Test
     void handleSave_whenServiceThrowsException_shouldThrowChatActionException() {
         long chatId = 123L;
@@ -285,7 +297,7 @@ class FeedHandlerTest {
         String callbackData = Callbacks.callback("feed_save", imageId);
         when(callbackQuery.data()).thenReturn(callbackData);
 
-        doThrow(new RuntimeException("DB error")).when(savedService).saveImage(userId, imageId);
+        when(savedService.saveImage(userId, imageId)).thenThrow(new RuntimeException("DB error"));
 
         ChatActionException exception = assertThrows(ChatActionException.class,
             () -> feedHandler.handleSave(callbackQuery));
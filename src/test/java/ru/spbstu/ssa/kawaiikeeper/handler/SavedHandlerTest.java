@@ -11,15 +11,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.spbstu.ssa.kawaiikeeper.common.Callbacks;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
 import ru.spbstu.ssa.kawaiikeeper.dto.SavedDto;
+import ru.spbstu.ssa.kawaiikeeper.dto.SavedPageDto;
 import ru.spbstu.ssa.kawaiikeeper.exception.ChatActionException;
+import ru.spbstu.ssa.kawaiikeeper.repository.SavedRepository;
+import ru.spbstu.ssa.kawaiikeeper.service.FileIdService;
 import ru.spbstu.ssa.kawaiikeeper.service.SavedService;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -47,6 +53,9 @@ class SavedHandlerTest {
     @Mock
     private User user;
 
+    @Spy
+    private FileIdService fileIdService = new FileIdService(mock(SavedRepository.class), new CacheConfig());
+
     @InjectMocks
     private SavedHandler savedHandler;
 
@@ -81,7 +90,7 @@ class SavedHandlerTest {
         when(chat.id()).thenReturn(chatId);
         when(message.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
-        when(savedService.hasImages(userId)).thenReturn(false);
+        when(savedService.findFirstPage(userId)).thenReturn(Optional.empty());
 
         List< ? extends BaseRequest< ?, ? > > result = savedHandler.handleSaved(message);
 
@@ -93,25 +102,20 @@ class SavedHandlerTest {
         assertEquals(chatId, sendMessage.getParameters().get("chat_id"));
         assertEquals("Ваша коллекция пуста.", sendMessage.getParameters().get("text"));
 
-        verify(savedService).hasImages(userId);
-        verify(savedService, never()).findOrderedImages(anyLong());
+        verify(savedService).findFirstPage(userId);
     }
 
     @Test
     void handleSaved_whenUserHasImages_shouldReturnSendPhotoWithKeyboard() {
         long chatId = 123L;
         long userId = 456L;
-        List< SavedDto > savedImages = List.of(
-            new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now()),
-            new SavedDto(2L, userId, "2", "https://example.com/image2.jpg", "cat2", Instant.now())
-        );
+        SavedPageDto firstPage = pageOf(savedOf(1L, userId), null, 2L);
 
         when(message.chat()).thenReturn(chat);
         when(chat.id()).thenReturn(chatId);
         when(message.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
-        when(savedService.hasImages(userId)).thenReturn(true);
-        when(savedService.findOrderedImages(userId)).thenReturn(savedImages);
+        when(savedService.findFirstPage(userId)).thenReturn(Optional.of(firstPage));
 
         List< ? extends BaseRequest< ?, ? > > result = savedHandler.handleSaved(message);
 
@@ -121,11 +125,30 @@ class SavedHandlerTest {
         assertInstanceOf(SendPhoto.class, result.get(0));
         SendPhoto sendPhoto = (SendPhoto) result.get(0);
         assertEquals(chatId, sendPhoto.getParameters().get("chat_id"));
-        assertEquals(savedImages.get(0).imageUrl(), sendPhoto.getParameters().get("photo"));
-        assertInstanceOf(InlineKeyboardMarkup.class, sendPhoto.getParameters().get("reply_markup"));
+        assertEquals(firstPage.saved().imageUrl(), sendPhoto.getParameters().get("photo"));
+        InlineKeyboardMarkup keyboard = (InlineKeyboardMarkup) sendPhoto.getParameters().get("reply_markup");
+        assertEquals(Callbacks.callback("saved_page", "2"), keyboard.inlineKeyboard()[0][0].callbackData());
+        assertEquals(Callbacks.callback("saved_remove", "1"), keyboard.inlineKeyboard()[1][0].callbackData());
 
-        verify(savedService).hasImages(userId);
-        verify(savedService).findOrderedImages(userId);
+        verify(savedService).findFirstPage(userId);
+    }
+
+    @Test
+    void handleSaved_withStoredFileId_shouldSendFileIdInsteadOfUrl() {
+        long chatId = 123L;
+        long userId = 456L;
+        SavedDto saved = new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now(), "file_1");
+
+        when(message.chat()).thenReturn(chat);
+        when(chat.id()).thenReturn(chatId);
+        when(message.from()).thenReturn(user);
+        when(user.id()).thenReturn(userId);
+        when(savedService.findFirstPage(userId)).thenReturn(Optional.of(pageOf(saved, null, null)));
+
+        List< ? extends BaseRequest< ?, ? > > result = savedHandler.handleSaved(message);
+
+        SendPhoto sendPhoto = (SendPhoto) result.get(0);
+        assertEquals("file_1", sendPhoto.getParameters().get("photo"));
     }
 
     @Test
@@ -133,12 +156,7 @@ class SavedHandlerTest {
         long chatId = 123L;
         long userId = 456L;
         int messageId = 789;
-        int page = 1;
-        List< SavedDto > savedImages = List.of(
-            new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now()),
-            new SavedDto(2L, userId, "2", "https://example.com/image2.jpg", "cat2", Instant.now()),
-            new SavedDto(3L, userId, "3", "https://example.com/image3.jpg", "cat3", Instant.now())
-        );
+        long savedId = 2L;
 
         when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
         when(inaccessibleMessage.chat()).thenReturn(chat);
@@ -147,10 +165,10 @@ class SavedHandlerTest {
         when(callbackQuery.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
 
-        String callbackData = Callbacks.callback("saved_page", String.valueOf(page));
+        String callbackData = Callbacks.callback("saved_page", String.valueOf(savedId));
         when(callbackQuery.data()).thenReturn(callbackData);
 
-        when(savedService.findOrderedImages(userId)).thenReturn(savedImages);
+        when(savedService.findPage(userId, savedId)).thenReturn(Optional.of(pageOf(savedOf(savedId, userId), 1L, 3L)));
 
         List< EditMessageMedia > result = savedHandler.handleSetPage(callbackQuery);
 
@@ -161,9 +179,34 @@ class SavedHandlerTest {
         assertEquals(chatId, editMessageMedia.getParameters().get("chat_id"));
         assertEquals(messageId, editMessageMedia.getParameters().get("message_id"));
         assertInstanceOf(InputMediaPhoto.class, editMessageMedia.getParameters().get("media"));
-        assertInstanceOf(InlineKeyboardMarkup.class, editMessageMedia.getParameters().get("reply_markup"));
+        InlineKeyboardMarkup keyboard = (InlineKeyboardMarkup) editMessageMedia.getParameters().get("reply_markup");
+        assertEquals(Callbacks.callback("saved_page", "1"), keyboard.inlineKeyboard()[0][0].callbackData());
+        assertEquals(Callbacks.callback("saved_page", "3"), keyboard.inlineKeyboard()[0][1].callbackData());
 
-        verify(savedService).findOrderedImages(userId);
+        verify(savedService).findPage(userId, savedId);
+        verify(savedService, never()).findFirstPage(anyLong());
+    }
+
+    @Test
+    void handleSetPage_whenSavedWasRemoved_shouldShowFirstPage() {
+        long chatId = 123L;
+        long userId = 456L;
+        int messageId = 789;
+
+        when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
+        when(inaccessibleMessage.chat()).thenReturn(chat);
+        when(inaccessibleMessage.messageId()).thenReturn(messageId);
+        when(chat.id()).thenReturn(chatId);
+        when(callbackQuery.from()).thenReturn(user);
+        when(user.id()).thenReturn(userId);
+        when(callbackQuery.data()).thenReturn(Callbacks.callback("saved_page", "5"));
+        when(savedService.findPage(userId, 5L)).thenReturn(Optional.empty());
+        when(savedService.findFirstPage(userId)).thenReturn(Optional.of(pageOf(savedOf(1L, userId), null, null)));
+
+        List< EditMessageMedia > result = savedHandler.handleSetPage(callbackQuery);
+
+        assertEquals(1, result.size());
+        verify(savedService).findFirstPage(userId);
     }
 
     @Test
@@ -184,7 +227,7 @@ class SavedHandlerTest {
         assertTrue(exception.getMessage().contains("Не удалось загрузить страницу"));
         assertEquals(chatId, exception.getChatId());
 
-        verify(savedService).findOrderedImages(anyLong());
+        verify(savedService, never()).findPage(anyLong(), anyLong());
     }
 
     @Test
@@ -197,7 +240,8 @@ class SavedHandlerTest {
         when(chat.id()).thenReturn(chatId);
         when(callbackQuery.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
-        when(savedService.findOrderedImages(userId)).thenThrow(new RuntimeException("DB error"));
+        when(callbackQuery.data()).thenReturn(Callbacks.callback("saved_page", "1"));
+        when(savedService.findPage(userId, 1L)).thenThrow(new RuntimeException("DB error"));
 
         ChatActionException exception = assertThrows(ChatActionException.class,
             () -> savedHandler.handleSetPage(callbackQuery));
@@ -205,7 +249,7 @@ class SavedHandlerTest {
         assertTrue(exception.getMessage().contains("Не удалось загрузить страницу"));
         assertEquals(chatId, exception.getChatId());
 
-        verify(savedService).findOrderedImages(userId);
+        verify(savedService).findPage(userId, 1L);
     }
 
     @Test
@@ -213,10 +257,6 @@ class SavedHandlerTest {
         long chatId = 123L;
         long userId = 456L;
         int messageId = 789;
-        int page = 0;
-        List< SavedDto > savedImages = List.of(
-            new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now())
-        );
 
         when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
         when(inaccessibleMessage.chat()).thenReturn(chat);
@@ -226,11 +266,10 @@ class SavedHandlerTest {
         when(user.id()).thenReturn(userId);
         when(callbackQuery.id()).thenReturn("callback_123");
 
-        String callbackData = Callbacks.callback("saved_remove", String.valueOf(page));
+        String callbackData = Callbacks.callback("saved_remove", "1");
         when(callbackQuery.data()).thenReturn(callbackData);
 
-        when(savedService.findOrderedImages(userId)).thenReturn(savedImages);
-        doNothing().when(savedService).removeImage(1L);
+        when(savedService.removeImage(userId, 1L)).thenReturn(Optional.empty());
 
         List< ? extends BaseRequest< ?, ? > > result = savedHandler.handleRemove(callbackQuery);
 
@@ -252,21 +291,14 @@ class SavedHandlerTest {
         assertEquals(chatId, sendMessage.getParameters().get("chat_id"));
         assertEquals("Ваша коллекция пуста.", sendMessage.getParameters().get("text"));
 
-        verify(savedService).findOrderedImages(userId);
-        verify(savedService).removeImage(1L);
+        verify(savedService).removeImage(userId, 1L);
     }
 
     @Test
-    void handleRemove_whenRemovingNotLastImage_shouldEditMessageWithRemaining() {
+    void handleRemove_whenRemovingNotLastImage_shouldEditMessageWithNextImage() {
         long chatId = 123L;
         long userId = 456L;
         int messageId = 789;
-        int page = 1;
-        List< SavedDto > savedImages = List.of(
-            new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now()),
-            new SavedDto(2L, userId, "2", "https://example.com/image2.jpg", "cat2", Instant.now()),
-            new SavedDto(3L, userId, "3", "https://example.com/image3.jpg", "cat3", Instant.now())
-        );
 
         when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
         when(inaccessibleMessage.chat()).thenReturn(chat);
@@ -276,11 +308,10 @@ class SavedHandlerTest {
         when(user.id()).thenReturn(userId);
         when(callbackQuery.id()).thenReturn("callback_123");
 
-        String callbackData = Callbacks.callback("saved_remove", String.valueOf(page));
+        String callbackData = Callbacks.callback("saved_remove", "2");
         when(callbackQuery.data()).thenReturn(callbackData);
 
-        when(savedService.findOrderedImages(userId)).thenReturn(savedImages);
-        doNothing().when(savedService).removeImage(2L);
+        when(savedService.removeImage(userId, 2L)).thenReturn(Optional.of(pageOf(savedOf(3L, userId), 1L, null)));
 
         List< ? extends BaseRequest< ?, ? > > result = savedHandler.handleRemove(callbackQuery);
 
@@ -296,22 +327,17 @@ class SavedHandlerTest {
         EditMessageMedia editMessageMedia = (EditMessageMedia) result.get(1);
         assertEquals(chatId, editMessageMedia.getParameters().get("chat_id"));
         assertEquals(messageId, editMessageMedia.getParameters().get("message_id"));
-        assertInstanceOf(InlineKeyboardMarkup.class, editMessageMedia.getParameters().get("reply_markup"));
+        InlineKeyboardMarkup keyboard = (InlineKeyboardMarkup) editMessageMedia.getParameters().get("reply_markup");
+        assertEquals(Callbacks.callback("saved_remove", "3"), keyboard.inlineKeyboard()[1][0].callbackData());
 
-        verify(savedService).findOrderedImages(userId);
-        verify(savedService).removeImage(2L);
+        verify(savedService).removeImage(userId, 2L);
     }
 
     @Test
-    void handleRemove_whenRemovingFirstImageOfTwo_shouldShowSecondImage() {
+    void handleRemove_whenRemovingLastOfSeveral_shouldShowPreviousImage() {
         long chatId = 123L;
         long userId = 456L;
         int messageId = 789;
-        int page = 0;
-        List< SavedDto > savedImages = List.of(
-            new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now()),
-            new SavedDto(2L, userId, "2", "https://example.com/image2.jpg", "cat2", Instant.now())
-        );
 
         when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
         when(inaccessibleMessage.chat()).thenReturn(chat);
@@ -320,22 +346,15 @@ class SavedHandlerTest {
         when(callbackQuery.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
         when(callbackQuery.id()).thenReturn("callback_123");
+        when(callbackQuery.data()).thenReturn(Callbacks.callback("saved_remove", "2"));
 
-        String callbackData = Callbacks.callback("saved_remove", String.valueOf(page));
-        when(callbackQuery.data()).thenReturn(callbackData);
-
-        when(savedService.findOrderedImages(userId)).thenReturn(savedImages);
-        doNothing().when(savedService).removeImage(1L);
+        when(savedService.removeImage(userId, 2L)).thenReturn(Optional.of(pageOf(savedOf(1L, userId), null, null)));
 
         List< ? extends BaseRequest< ?, ? > > result = savedHandler.handleRemove(callbackQuery);
 
-        assertNotNull(result);
         assertEquals(2, result.size());
-
         assertInstanceOf(EditMessageMedia.class, result.get(1));
-
-        verify(savedService).findOrderedImages(userId);
-        verify(savedService).removeImage(1L);
+        verify(savedService).removeImage(userId, 2L);
     }
 
     @Test
@@ -356,18 +375,13 @@ class SavedHandlerTest {
         assertTrue(exception.getMessage().contains("Не удалось удалить изображение"));
         assertEquals(chatId, exception.getChatId());
 
-        verify(savedService).findOrderedImages(anyLong());
-        verify(savedService, never()).removeImage(anyLong());
+        verify(savedService, never()).removeImage(anyLong(), anyLong());
     }
 
     @Test
     void handleRemove_whenServiceThrowsException_shouldThrowChatActionException() {
         long chatId = 123L;
         long userId = 456L;
-        int page = 0;
-        List< SavedDto > savedImages = List.of(
-            new SavedDto(1L, userId, "1", "https://example.com/image1.jpg", "cat1", Instant.now())
-        );
 
         when(callbackQuery.maybeInaccessibleMessage()).thenReturn(inaccessibleMessage);
         when(inaccessibleMessage.chat()).thenReturn(chat);
@@ -375,11 +389,10 @@ class SavedHandlerTest {
         when(callbackQuery.from()).thenReturn(user);
         when(user.id()).thenReturn(userId);
 
-        String callbackData = Callbacks.callback("saved_remove", String.valueOf(page));
+        String callbackData = Callbacks.callback("saved_remove", "1");
         when(callbackQuery.data()).thenReturn(callbackData);
 
-        when(savedService.findOrderedImages(userId)).thenReturn(savedImages);
-        doThrow(new RuntimeException("DB error")).when(savedService).removeImage(1L);
+        when(savedService.removeImage(userId, 1L)).thenThrow(new RuntimeException("DB error"));
 
         ChatActionException exception = assertThrows(ChatActionException.class,
             () -> savedHandler.handleRemove(callbackQuery));
@@ -387,7 +400,14 @@ class SavedHandlerTest {
         assertTrue(exception.getMessage().contains("Не удалось удалить изображение"));
         assertEquals(chatId, exception.getChatId());
 
-        verify(savedService).findOrderedImages(userId);
-        verify(savedService).removeImage(1L);
+        verify(savedService).removeImage(userId, 1L);
+    }
+
+    private static SavedDto savedOf(long id, long userId) {
+        return new SavedDto(id, userId, String.valueOf(id), "https://example.com/image" + id + ".jpg", "cat" + id, Instant.now(), null);
+    }
+
+    private static SavedPageDto pageOf(SavedDto saved, Long prevId, Long nextId) {
+        return new SavedPageDto(saved, prevId, nextId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package ru.spbstu.ssa.kawaiikeeper.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.migration.V3__Category_ordinal;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+@Import(V3__Category_ordinal.class)
+class SavedRepositoryQueryPlanTest {
+
+    @TestConfiguration
+    static class CatalogConfig {
+
+        @Bean
+        CategoryCatalog categoryCatalog(ApiConfig apiConfig) {
+            return new CategoryCatalog(apiConfig.getApiCategories());
+        }
+    }
+
+    private static final long USER_ID = -7L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("""
+            insert into saved (user_id, external_id, image_url, category_name, created_at)
+            select -(u % 200) - 1, 'plan_' || u, 'https://example.com/' || u || '.jpg', 'cute',
+                   now() - u * interval '1 second'
+            from generate_series(1, 20000) as u
+            """);
+        jdbcTemplate.execute("analyze saved");
+    }
+
+    @Test
+    void orderedCollection_shouldUseUserCreatedIndex() {
+        assertPlanUses("ix_saved_user_created_id",
+            "select * from saved where user_id = " + USER_ID + " order by created_at asc");
+    }
+
+    @Test
+    void existsByUser_shouldUseUserCreatedIndex() {
+        assertPlanUses("ix_saved_user_created_id",
+            "select id from saved where user_id = " + USER_ID + " limit 1");
+    }
+
+    @Test
+    void nextNeighbour_shouldUseUserCreatedIndex() {
+        assertPlanUses("ix_saved_user_created_id", """
+            select id from saved
+            where user_id = %d and (created_at > now() - interval '1 hour'
+                or (created_at = now() - interval '1 hour' and id > 0))
+            order by created_at asc, id asc
+            limit 1
+            """.formatted(USER_ID));
+    }
+
+    @Test
+    void ownedLookup_shouldUsePrimaryKey() {
+        assertPlanUses("saved_pkey",
+            "select * from saved where id = 1 and user_id = " + USER_ID);
+    }
+
+    @Test
+    void missingFileIdUpdate_shouldUseExternalIdIndex() {
+        assertPlanUses("ix_saved_external_id",
+            "update saved set file_id = 'file' where external_id = 'plan_7' and file_id is null");
+    }
+
+    private void assertPlanUses(String index, String sql) {
+        List< String > plan = jdbcTemplate.queryForList("explain " + sql, String.class);
+        assertTrue(plan.stream().anyMatch(line -> line.contains(index)),
+            () -> "Expected " + index + " in plan:\n" + String.join("\n", plan));
+    }
+}
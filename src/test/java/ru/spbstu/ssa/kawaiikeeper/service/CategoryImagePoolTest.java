@@ -0,0 +1,101 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiException;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CategoryImagePoolTest {
+
+    private final ImageService imageService = mock(ImageService.class);
+
+    @Test
+    void next_shouldShareOneUpstreamBatchBetweenCursors() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(List.of(imageOf("a"), imageOf("b"), imageOf("c")));
+        CategoryImagePool pool = poolWithCapacity(16);
+
+        ImageDto first = pool.next(pool.openCursor("cats"), new HashSet< String >()::add);
+        ImageDto second = pool.next(pool.openCursor("cats"), new HashSet< String >()::add);
+
+        assertEquals("a", first.externalId());
+        assertEquals("a", second.externalId());
+        assertEquals(3, pool.size("cats"));
+        verify(imageService, times(1)).pollShared(eq("cats"), anyInt());
+    }
+
+    @Test
+    void next_shouldSkipImagesAlreadySeenByUser() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(List.of(imageOf("a"), imageOf("a"), imageOf("b"), imageOf("c")));
+        CategoryImagePool pool = poolWithCapacity(16);
+        CategoryImagePool.Cursor cursor = pool.openCursor("cats");
+        Set< String > seen = new HashSet<>();
+
+        assertEquals("a", pool.next(cursor, seen::add).externalId());
+        assertEquals("b", pool.next(cursor, seen::add).externalId());
+    }
+
+    @Test
+    void next_whenUpstreamHasNothingUnseen_shouldThrow() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(List.of(imageOf("a")));
+        CategoryImagePool pool = poolWithCapacity(16);
+        CategoryImagePool.Cursor cursor = pool.openCursor("cats");
+        Set< String > seen = new HashSet<>();
+
+        pool.next(cursor, seen::add);
+
+        assertThrows(ImageApiException.class, () -> pool.next(cursor, seen::add));
+    }
+
+    @Test
+    void next_whenCursorFellBehindRing_shouldSkipOverwrittenImages() {
+        when(imageService.pollShared(eq("cats"), anyInt()))
+            .thenReturn(List.of(imageOf("a"), imageOf("b"), imageOf("c"), imageOf("d"), imageOf("e"), imageOf("f")));
+        CategoryImagePool pool = poolWithCapacity(4);
+        CategoryImagePool.Cursor lagging = pool.openCursor("cats");
+
+        pool.next(pool.openCursor("cats"), new HashSet< String >()::add);
+
+        assertEquals("c", pool.next(lagging, new HashSet< String >()::add).externalId());
+    }
+
+    @Test
+    void next_servedFromPool_shouldNotAdaptBatchSize() {
+        List< ImageDto > first = IntStream.range(0, 8).mapToObj(i -> imageOf("a" + i)).toList();
+        List< ImageDto > second = IntStream.range(0, 8).mapToObj(i -> imageOf("b" + i)).toList();
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(first, second);
+        CategoryImagePool pool = poolWithCapacity(16);
+        CategoryImagePool.Cursor cursor = pool.openCursor("cats");
+        Set< String > seen = new HashSet<>();
+
+        for (int i = 0; i < 7; i++) {
+            pool.next(cursor, seen::add);
+        }
+
+        // seven quick reads caused two fetches, so the batch size doubled once rather than per read
+        verify(imageService).pollShared("cats", 1);
+        verify(imageService, timeout(1000)).pollShared("cats", 2);
+        verify(imageService, times(2)).pollShared(eq("cats"), anyInt());
+    }
+
+    private CategoryImagePool poolWithCapacity(int capacity) {
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.setPrefetchSize(1);
+        cacheConfig.setPoolCapacity(capacity);
+        return new CategoryImagePool(imageService, cacheConfig);
+    }
+
+    private static ImageDto imageOf(String externalId) {
+        return new ImageDto(externalId, "https://example.com/" + externalId + ".png", "cats");
+    }
+
+}
@@ -1,11 +1,12 @@
 package ru.spbstu.ssa.kawaiikeeper.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.common.CategoryCatalog;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
 import ru.spbstu.ssa.kawaiikeeper.entity.Category;
 import ru.spbstu.ssa.kawaiikeeper.repository.CategoryRepository;
 
@@ -20,14 +21,18 @@ import static org.mockito.Mockito.*;
 class CategoryServiceTest {
 
     @Mock
-    private ApiConfig apiConfig;
+    private CategoryRepository categoryRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private FeedPrefetcher feedPrefetcher;
 
-    @InjectMocks
     private CategoryService categoryService;
 
+    @BeforeEach
+    void setUp() {
+        useCatalog(List.of("animals", "nature", "art"));
+    }
+
     @Test
     void hasCategory_whenCategoryExists_shouldReturnTrue() {
         long userId = 123L;
@@ -89,33 +94,21 @@ class CategoryServiceTest {
     @Test
     void getDefaultCategoryName_shouldReturnFirstCategoryFromConfig() {
         List< String > categories = List.of("animals", "nature", "art");
-        when(apiConfig.getApiCategories()).thenReturn(categories);
+        useCatalog(categories);
 
         String result = categoryService.getDefaultCategoryName();
 
         assertEquals("animals", result);
-        verify(apiConfig).getApiCategories();
     }
 
     @Test
     void getDefaultCategoryName_whenConfigHasSingleCategory_shouldReturnIt() {
         List< String > singleCategory = List.of("only_category");
-        when(apiConfig.getApiCategories()).thenReturn(singleCategory);
+        useCatalog(singleCategory);
 
         String result = categoryService.getDefaultCategoryName();
 
         assertEquals("only_category", result);
-        verify(apiConfig).getApiCategories();
-    }
-
-    @Test
-    void getDefaultCategoryName_whenConfigIsEmpty_shouldThrowIndexOutOfBounds() {
-        List< String > emptyList = List.of();
-        when(apiConfig.getApiCategories()).thenReturn(emptyList);
-
-        assertThrows(IndexOutOfBoundsException.class, () -> categoryService.getDefaultCategoryName());
-
-        verify(apiConfig).getApiCategories();
     }
 
     @Test
@@ -123,7 +116,7 @@ class CategoryServiceTest {
         long userId = 123L;
         String defaultCategoryName = "default_cat";
         Category expectedCategory = new Category(userId, defaultCategoryName);
-        when(apiConfig.getApiCategories()).thenReturn(List.of(defaultCategoryName, "other"));
+        useCatalog(List.of(defaultCategoryName, "other"));
         when(categoryRepository.save(any(Category.class))).thenReturn(expectedCategory);
 
         Category result = categoryService.setDefaultCategory(userId);
@@ -131,7 +124,6 @@ class CategoryServiceTest {
         assertNotNull(result);
         assertEquals(userId, result.getUserId());
         assertEquals(defaultCategoryName, result.getCategoryName());
-        verify(apiConfig).getApiCategories();
         verify(categoryRepository).save(argThat(category ->
             category.getUserId() == userId &&
                 category.getCategoryName().equals(defaultCategoryName)
@@ -142,7 +134,7 @@ class CategoryServiceTest {
     void setDefaultCategory_withZeroUserId_shouldWork() {
         long userId = 0L;
         String defaultCategoryName = "test";
-        when(apiConfig.getApiCategories()).thenReturn(List.of(defaultCategoryName));
+        useCatalog(List.of(defaultCategoryName));
         when(categoryRepository.save(any(Category.class))).thenReturn(new Category(userId, defaultCategoryName));
 
         Category result = categoryService.setDefaultCategory(userId);
@@ -157,7 +149,7 @@ class CategoryServiceTest {
         long userId = 123L;
         String newCategoryName = "nature";
         List< String > availableCategories = List.of("animals", "nature", "art");
-        when(apiConfig.getApiCategories()).thenReturn(availableCategories);
+        useCatalog(availableCategories);
         when(categoryRepository.save(any(Category.class))).thenReturn(new Category(userId, newCategoryName));
 
         Category result = categoryService.updateCategory(userId, newCategoryName);
@@ -165,7 +157,7 @@ class CategoryServiceTest {
         assertNotNull(result);
         assertEquals(userId, result.getUserId());
         assertEquals(newCategoryName, result.getCategoryName());
-        verify(apiConfig).getApiCategories();
+        verify(feedPrefetcher).invalidate(userId);
         verify(categoryRepository).save(argThat(category ->
             category.getUserId() == userId &&
                 category.getCategoryName().equals(newCategoryName)
@@ -177,25 +169,23 @@ class CategoryServiceTest {
         long userId = 123L;
         String invalidCategoryName = "invalid_category";
         List< String > availableCategories = List.of("animals", "nature", "art");
-        when(apiConfig.getApiCategories()).thenReturn(availableCategories);
+        useCatalog(availableCategories);
 
         RuntimeException exception = assertThrows(RuntimeException.class,
             () -> categoryService.updateCategory(userId, invalidCategoryName));
 
         assertTrue(exception.getMessage().contains("Category " + invalidCategoryName + " not found"));
-        verify(apiConfig).getApiCategories();
         verify(categoryRepository, never()).save(any());
+        verify(feedPrefetcher, never()).invalidate(anyLong());
     }
 
     @Test
     void updateCategory_whenCategoryNameIsNull_shouldThrowNullPointerException() {
         long userId = 123L;
         List< String > availableCategories = List.of("animals", "nature");
-        when(apiConfig.getApiCategories()).thenReturn(availableCategories);
+        useCatalog(availableCategories);
 
         assertThrows(NullPointerException.class, () -> categoryService.updateCategory(userId, null));
-
-        verify(apiConfig).getApiCategories();
         verify(categoryRepository, never()).save(any());
     }
 
@@ -204,27 +194,12 @@ class CategoryServiceTest {
         long userId = 123L;
         String categoryName = "Nature"; // с заглавной буквы
         List< String > availableCategories = List.of("animals", "nature", "art"); // все строчные
-        when(apiConfig.getApiCategories()).thenReturn(availableCategories);
+        useCatalog(availableCategories);
 
         RuntimeException exception = assertThrows(RuntimeException.class,
             () -> categoryService.updateCategory(userId, categoryName));
 
         assertTrue(exception.getMessage().contains("Category " + categoryName + " not found"));
-        verify(apiConfig).getApiCategories();
-        verify(categoryRepository, never()).save(any());
-    }
-
-    @Test
-    void updateCategory_whenConfigHasEmptyList_shouldAlwaysThrowException() {
-        long userId = 123L;
-        String anyCategoryName = "any_category";
-        when(apiConfig.getApiCategories()).thenReturn(List.of());
-
-        RuntimeException exception = assertThrows(RuntimeException.class,
-            () -> categoryService.updateCategory(userId, anyCategoryName));
-
-        assertTrue(exception.getMessage().contains("Category " + anyCategoryName + " not found"));
-        verify(apiConfig).getApiCategories();
         verify(categoryRepository, never()).save(any());
     }
 
@@ -233,14 +208,13 @@ class CategoryServiceTest {
         long userId = 123L;
         String emptyCategoryName = "";
         List< String > availableCategories = List.of("animals", "", "art"); // включаем пустую строку
-        when(apiConfig.getApiCategories()).thenReturn(availableCategories);
+        useCatalog(availableCategories);
         when(categoryRepository.save(any(Category.class))).thenReturn(new Category(userId, emptyCategoryName));
 
         Category result = categoryService.updateCategory(userId, emptyCategoryName);
 
         assertNotNull(result);
         assertEquals(emptyCategoryName, result.getCategoryName());
-        verify(apiConfig).getApiCategories();
         verify(categoryRepository).save(argThat(category ->
             category.getCategoryName().isEmpty()
         ));
@@ -251,7 +225,7 @@ class CategoryServiceTest {
         long userId = 123L;
         String newCategoryName = "nature";
         List< String > availableCategories = List.of("animals", "nature", "art");
-        when(apiConfig.getApiCategories()).thenReturn(availableCategories);
+        useCatalog(availableCategories);
         when(categoryRepository.save(any(Category.class))).thenReturn(new Category(userId, newCategoryName));
 
         Category result = categoryService.updateCategory(userId, newCategoryName);
@@ -263,4 +237,73 @@ class CategoryServiceTest {
                 category.getCategoryName().equals(newCategoryName)
         ));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findCategory_whenCalledRepeatedly_shouldHitRepositoryOnce() {
+        long userId = 123L;
+        when(categoryRepository.findById(userId)).thenReturn(Optional.of(new Category(userId, "cats")));
+
+        categoryService.findCategory(userId);
+        categoryService.findCategory(userId);
+        boolean result = categoryService.hasCategory(userId);
+
+        assertTrue(result);
+        verify(categoryRepository, times(1)).findById(userId);
+        assertEquals(2, categoryService.stats().hitCount());
+    }
+
+    @Test
+    void findCategory_whenCategoryIsMissing_shouldNotCacheAbsence() {
+        long userId = 123L;
+        when(categoryRepository.findById(userId)).thenReturn(Optional.empty());
+
+        categoryService.findCategory(userId);
+        categoryService.findCategory(userId);
+
+        verify(categoryRepository, times(2)).findById(userId);
+    }
+
+    @Test
+    void updateCategory_shouldWriteThroughToCache() {
+        long userId = 123L;
+        when(categoryRepository.findById(userId)).thenReturn(Optional.of(new Category(userId, "animals")));
+        useCatalog(List.of("animals", "nature"));
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        categoryService.findCategory(userId);
+        categoryService.updateCategory(userId, "nature");
+
+        assertEquals("nature", categoryService.findCategory(userId).orElseThrow().getCategoryName());
+        verify(categoryRepository, times(1)).findById(userId);
+    }
+
+    @Test
+    void setDefaultCategory_shouldWriteThroughToCache() {
+        long userId = 123L;
+        useCatalog(List.of("animals"));
+        when(categoryRepository.save(any(Category.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        categoryService.setDefaultCategory(userId);
+
+        assertEquals("animals", categoryService.findCategory(userId).orElseThrow().getCategoryName());
+        verify(categoryRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void checkStoredOrdinals_whenOrdinalsFitCatalog_shouldPass() {
+        when(categoryRepository.findMaxOrdinal()).thenReturn(Optional.of((short) 2));
+
+        assertDoesNotThrow(() -> categoryService.checkStoredOrdinals());
+    }
+
+    @Test
+    void checkStoredOrdinals_whenCatalogWasShortened_shouldFail() {
+        when(categoryRepository.findMaxOrdinal()).thenReturn(Optional.of((short) 3));
+
+        assertThrows(IllegalStateException.class, () -> categoryService.checkStoredOrdinals());
+    }
+
+    private void useCatalog(List< String > categories) {
+        categoryService = new CategoryService(new CategoryCatalog(categories), categoryRepository, feedPrefetcher, new CacheConfig());
+    }
+}
@@ -0,0 +1,95 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
+import ru.spbstu.ssa.kawaiikeeper.entity.Category;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeedPrefetcherTest {
+
+    @Mock
+    private ImageService imageService;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void next_shouldServeImagesFromSharedCategoryPool() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(imagesOf("cats", 4));
+        FeedPrefetcher prefetcher = prefetcher();
+
+        ImageDto first = prefetcher.next(new Category(1L, "cats"));
+        ImageDto second = prefetcher.next(new Category(1L, "cats"));
+        ImageDto otherUser = prefetcher.next(new Category(2L, "cats"));
+
+        assertEquals("cats-1", first.externalId());
+        assertEquals("cats-2", second.externalId());
+        assertEquals("cats-1", otherUser.externalId());
+        verify(imageService, times(1)).pollShared(eq("cats"), anyInt());
+    }
+
+    @Test
+    void next_shouldSwitchStreamWhenCategoryChanges() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(imagesOf("cats", 4));
+        when(imageService.pollShared(eq("dogs"), anyInt())).thenReturn(imagesOf("dogs", 4));
+        FeedPrefetcher prefetcher = prefetcher();
+
+        prefetcher.next(new Category(1L, "cats"));
+        ImageDto image = prefetcher.next(new Category(1L, "dogs"));
+
+        assertEquals("dogs", image.categoryName());
+    }
+
+    @Test
+    void next_afterInvalidate_shouldNotRepeatSeenImages() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(imagesOf("cats", 4));
+        FeedPrefetcher prefetcher = prefetcher();
+        Category category = new Category(1L, "cats");
+
+        prefetcher.next(category);
+        prefetcher.invalidate(1L);
+        ImageDto image = prefetcher.next(category);
+
+        assertEquals("cats-2", image.externalId());
+    }
+
+    @Test
+    void next_shouldSkipImagesSeenBeforeRestart() {
+        when(imageService.pollShared(eq("cats"), anyInt())).thenReturn(imagesOf("cats", 4));
+        Category category = new Category(1L, "cats");
+        prefetcher().next(category);
+
+        ImageDto image = prefetcher().next(category);
+
+        assertEquals("cats-2", image.externalId());
+    }
+
+    private FeedPrefetcher prefetcher() {
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.setPrefetchSize(1);
+        cacheConfig.setSeenFilterPath(directory.resolve("seen.bin").toString());
+        cacheConfig.setSeenFilterUsers(8);
+        return new FeedPrefetcher(new CategoryImagePool(imageService, cacheConfig), new SeenImageFilter(cacheConfig), cacheConfig);
+    }
+
+    private static List< ImageDto > imagesOf(String categoryName, int count) {
+        return IntStream.rangeClosed(1, count)
+            .mapToObj(number -> new ImageDto(categoryName + "-" + number, "https://example.com/" + number + ".png", categoryName))
+            .toList();
+    }
+
+}
@@ -0,0 +1,101 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.model.Message;
+import com.pengrad.telegrambot.model.PhotoSize;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.SendPhoto;
+import com.pengrad.telegrambot.response.SendResponse;
+import org.junit.jupiter.api.Test;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+import ru.spbstu.ssa.kawaiikeeper.repository.SavedRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FileIdServiceTest {
+
+    private static final String EXTERNAL_ID = "img_1";
+    private static final String URL = "https://example.com/1.jpg";
+
+    private final SavedRepository savedRepository = mock(SavedRepository.class);
+    private final FileIdService fileIdService = new FileIdService(savedRepository, new CacheConfig());
+
+    @Test
+    void photoRequest_afterSuccessfulSend_shouldReuseCapturedFileId() {
+        SendPhoto first = fileIdService.photoRequest(EXTERNAL_ID, URL, null, photo -> new SendPhoto(1L, photo));
+
+        assertNull(fileIdService.onResponse(first, photoResponse("small", "large")));
+        SendPhoto second = fileIdService.photoRequest(EXTERNAL_ID, URL, null, photo -> new SendPhoto(1L, photo));
+
+        assertEquals(URL, first.getParameters().get("photo"));
+        assertEquals("large", second.getParameters().get("photo"));
+        verify(savedRepository, timeout(1000)).updateMissingFileId(EXTERNAL_ID, "large");
+    }
+
+    @Test
+    void onResponse_whenStoredFileIdRejected_shouldReturnUrlFallback() {
+        SendPhoto request = fileIdService.photoRequest(EXTERNAL_ID, URL, "stale", photo -> new SendPhoto(1L, photo));
+        SendResponse rejected = mock(SendResponse.class);
+        when(rejected.isOk()).thenReturn(false);
+        when(rejected.errorCode()).thenReturn(400);
+        when(rejected.description()).thenReturn("Bad Request: wrong file identifier/HTTP URL specified");
+
+        BaseRequest< ?, ? > fallback = fileIdService.onResponse(request, rejected);
+
+        assertEquals("stale", request.getParameters().get("photo"));
+        assertNotNull(fallback);
+        assertEquals(URL, fallback.getParameters().get("photo"));
+        verify(savedRepository, timeout(1000)).clearFileId(EXTERNAL_ID, "stale");
+    }
+
+    @Test
+    void onResponse_afterRejectedFileId_shouldPersistIdReturnedForUrlFallback() {
+        SendPhoto request = fileIdService.photoRequest(EXTERNAL_ID, URL, "stale", photo -> new SendPhoto(1L, photo));
+        SendResponse rejected = mock(SendResponse.class);
+        when(rejected.errorCode()).thenReturn(400);
+        when(rejected.description()).thenReturn("Bad Request: wrong remote file identifier specified");
+
+        BaseRequest< ?, ? > fallback = fileIdService.onResponse(request, rejected);
+        fileIdService.onResponse(fallback, photoResponse("fresh"));
+
+        var order = inOrder(savedRepository);
+        order.verify(savedRepository, timeout(1000)).clearFileId(EXTERNAL_ID, "stale");
+        order.verify(savedRepository, timeout(1000)).updateMissingFileId(EXTERNAL_ID, "fresh");
+    }
+
+    @Test
+    void onResponse_whenOtherBadRequest_shouldNotFallBack() {
+        SendPhoto request = fileIdService.photoRequest(EXTERNAL_ID, URL, "stored", photo -> new SendPhoto(1L, photo));
+        SendResponse rejected = mock(SendResponse.class);
+        when(rejected.errorCode()).thenReturn(400);
+        when(rejected.description()).thenReturn("Bad Request: message is not modified");
+
+        assertNull(fileIdService.onResponse(request, rejected));
+        verifyNoInteractions(savedRepository);
+    }
+
+    @Test
+    void onResponse_forUntrackedRequest_shouldIgnoreIt() {
+        SendPhoto untracked = new SendPhoto(1L, URL);
+
+        assertNull(fileIdService.onResponse(untracked, photoResponse("large")));
+        verifyNoInteractions(savedRepository);
+    }
+
+    private static SendResponse photoResponse(String... fileIds) {
+        PhotoSize[] sizes = new PhotoSize[fileIds.length];
+        for (int i = 0; i < fileIds.length; i++) {
+            sizes[i] = mock(PhotoSize.class);
+            when(sizes[i].width()).thenReturn(100 * (i + 1));
+            when(sizes[i].height()).thenReturn(100 * (i + 1));
+            when(sizes[i].fileId()).thenReturn(fileIds[i]);
+        }
+        Message message = mock(Message.class);
+        when(message.photo()).thenReturn(sizes);
+        SendResponse response = mock(SendResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(response.message()).thenReturn(message);
+        return response;
+    }
+
+}
@@ -0,0 +1,48 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import org.junit.jupiter.api.Test;
+import ru.spbstu.ssa.kawaiikeeper.common.CircuitBreaker;
+import ru.spbstu.ssa.kawaiikeeper.config.ApiConfig;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiUnavailableException;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageApiGuardTest {
+
+    @Test
+    void call_whenRequestThrowsError_shouldOpenCircuit() {
+        ImageApiGuard guard = new ImageApiGuard(configWithOpenDuration(Duration.ofMinutes(1)));
+
+        assertThrows(StackOverflowError.class, () -> guard.call(() -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+        assertThrows(ImageApiUnavailableException.class, () -> guard.call(() -> "ok"));
+    }
+
+    @Test
+    void call_whenHalfOpenTrialThrowsError_shouldReleaseTrial() {
+        ImageApiGuard guard = new ImageApiGuard(configWithOpenDuration(Duration.ofNanos(1)));
+        assertThrows(StackOverflowError.class, () -> guard.call(() -> {
+            throw new StackOverflowError();
+        }));
+
+        assertThrows(StackOverflowError.class, () -> guard.call(() -> {
+            throw new StackOverflowError();
+        }));
+
+        assertEquals("ok", guard.call(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    private static ApiConfig configWithOpenDuration(Duration openDuration) {
+        ApiConfig apiConfig = new ApiConfig();
+        apiConfig.setBreakerFailureThreshold(1);
+        apiConfig.setBreakerOpenDuration(openDuration);
+        return apiConfig;
+    }
+
+}
@@ -1,35 +1,72 @@
 package ru.spbstu.ssa.kawaiikeeper.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.client.RestClientTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
-import ru.spbstu.ssa.kawaiikeeper.entity.Category;
+import ru.spbstu.ssa.kawaiikeeper.exception.ImageApiException;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.*;
 
 @RestClientTest(ImageService.class)
+@Import({ ImageCache.class, ImageApiGuard.class })
 class ImageServiceTest {
 
     @Autowired
     private ImageService imageService;
 
+    @Autowired
+    private ImageCache imageCache;
+
     @Autowired
     private MockRestServiceServer mockServer;
 
+    @AfterEach
+    void clearCache() {
+        imageCache.invalidateAll();
+    }
+
+    @Test
+    void pollShared_shouldRequestWithoutUserSession() {
+        String jsonResponse = """
+            {
+                "success": true,
+                "count": 1,
+                "images": [
+                    {
+                        "id": "img_1",
+                        "category": "cats",
+                        "image": { "compressed": { "url": "https://example.com/1.jpg" } }
+                    }
+                ]
+            }
+            """;
+        mockServer.expect(requestTo("/images/cats?count=1"))
+            .andRespond(withSuccess(jsonResponse, MediaType.APPLICATION_JSON));
+
+        List< ImageDto > result = imageService.pollShared("cats", 1);
+
+        assertEquals(1, result.size());
+        assertEquals("img_1", result.get(0).externalId());
+        mockServer.verify();
+    }
+
     @Test
-    void pollNext_shouldMakeCorrectRequestAndParseResponse() {
-        Category category = new Category(123L, "cats");
-        String expectedUrl = "/images/cats?session=id&id=123&count=1";
+    void getByExternalId_afterPoll_shouldServeFromCache() {
+        String expectedUrl = "/images/cats?count=1";
         String jsonResponse = """
             {
                 "id": "img_123",
@@ -44,37 +81,35 @@ class ImageServiceTest {
         mockServer.expect(requestTo(expectedUrl))
             .andRespond(withSuccess(jsonResponse, MediaType.APPLICATION_JSON));
 
-        ImageDto result = imageService.pollNext(category);
+        long hitsBefore = imageCache.stats().hitCount();
+        ImageDto polled = imageService.pollShared("cats", 1).get(0);
+        ImageDto cached = imageService.getByExternalId("img_123");
 
-        assertNotNull(result);
-        assertEquals("img_123", result.externalId());
-        assertEquals("https://example.com/cat.jpg", result.imageUrl());
-        assertEquals("cats", result.categoryName());
+        assertEquals(polled, cached);
+        assertEquals(hitsBefore + 1, imageCache.stats().hitCount());
         mockServer.verify();
     }
 
     @Test
-    void pollNext_whenApiReturnsError_shouldThrowRuntimeException() {
-        Category category = new Category(456L, "dogs");
-        String expectedUrl = "/images/dogs?session=id&id=456&count=1";
+    void pollShared_whenApiReturnsError_shouldThrowRuntimeException() {
+        String expectedUrl = "/images/dogs?count=1";
         mockServer.expect(requestTo(expectedUrl))
             .andRespond(withServerError());
 
         RuntimeException exception = assertThrows(RuntimeException.class,
-            () -> imageService.pollNext(category));
+            () -> imageService.pollShared("dogs", 1));
         assertTrue(exception.getMessage().contains("HTTP error"));
         mockServer.verify();
     }
 
     @Test
-    void pollNext_whenApiReturnsNotFound_shouldThrowRuntimeException() {
-        Category category = new Category(789L, "birds");
-        String expectedUrl = "/images/birds?session=id&id=789&count=1";
+    void pollShared_whenApiReturnsNotFound_shouldThrowRuntimeException() {
+        String expectedUrl = "/images/birds?count=1";
         mockServer.expect(requestTo(expectedUrl))
             .andRespond(withStatus(HttpStatus.NOT_FOUND));
 
         RuntimeException exception = assertThrows(RuntimeException.class,
-            () -> imageService.pollNext(category));
+            () -> imageService.pollShared("birds", 1));
         assertTrue(exception.getMessage().contains("HTTP error"));
         mockServer.verify();
     }
@@ -147,23 +182,21 @@ class ImageServiceTest {
     }
 
     @Test
-    void pollNext_whenJsonResponseIsInvalid_shouldThrowRuntimeException() {
-        Category category = new Category(123L, "cats");
-        String expectedUrl = "/images/cats?session=id&id=123&count=1";
+    void pollShared_whenJsonResponseIsInvalid_shouldThrowRuntimeException() {
+        String expectedUrl = "/images/cats?count=1";
         String invalidJson = "Invalid JSON response";
         mockServer.expect(requestTo(expectedUrl))
             .andRespond(withSuccess(invalidJson, MediaType.APPLICATION_JSON));
 
         RuntimeException exception = assertThrows(RuntimeException.class,
-            () -> imageService.pollNext(category));
+            () -> imageService.pollShared("cats", 1));
         assertInstanceOf(JsonProcessingException.class, exception.getCause());
         mockServer.verify();
     }
 
     @Test
-    void pollNext_whenJsonMissingFields_shouldThrowRuntimeException() {
-        Category category = new Category(123L, "cats");
-        String expectedUrl = "/images/cats?session=id&id=123&count=1";
+    void pollShared_whenJsonMissingFields_shouldThrowRuntimeException() {
+        String expectedUrl = "/images/cats?count=1";
         String incompleteJson = """
             {
                 "id": "img_123"
@@ -174,7 +207,7 @@ class ImageServiceTest {
             .andRespond(withSuccess(incompleteJson, MediaType.APPLICATION_JSON));
 
         RuntimeException exception = assertThrows(RuntimeException.class,
-            () -> imageService.pollNext(category));
+            () -> imageService.pollShared("cats", 1));
         assertNotNull(exception);
         mockServer.verify();
     }
@@ -204,9 +237,29 @@ class ImageServiceTest {
     }
 
     @Test
-    void pollNext_shouldParseComplexJsonStructureCorrectly() {
-        Category category = new Category(999L, "animals");
-        String expectedUrl = "/images/animals?session=id&id=999&count=1";
+    void pollShared_whenCompressedImageIsMissing_shouldThrowImageApiException() {
+        String expectedUrl = "/images/cats?count=1";
+        String jsonWithoutCompressed = """
+            {
+                "id": "img_123",
+                "category": "cats",
+                "image": {
+                    "original": {
+                        "url": "https://example.com/cat.jpg"
+                    }
+                }
+            }
+            """;
+        mockServer.expect(requestTo(expectedUrl))
+            .andRespond(withSuccess(jsonWithoutCompressed, MediaType.APPLICATION_JSON));
+
+        assertThrows(ImageApiException.class, () -> imageService.pollShared("cats", 1));
+        mockServer.verify();
+    }
+
+    @Test
+    void pollShared_shouldParseComplexJsonStructureCorrectly() {
+        String expectedUrl = "/images/animals?count=1";
         String jsonResponse = """
             {
                 "id": "complex_id_123",
@@ -232,7 +285,7 @@ class ImageServiceTest {
         mockServer.expect(requestTo(expectedUrl))
             .andRespond(withSuccess(jsonResponse, MediaType.APPLICATION_JSON));
 
-        ImageDto result = imageService.pollNext(category);
+        ImageDto result = imageService.pollShared("animals", 1).get(0);
 
         assertNotNull(result);
         assertEquals("complex_id_123", result.externalId());
@@ -270,9 +323,8 @@ class ImageServiceTest {
     }
 
     @Test
-    void pollNext_shouldAcceptJsonWithExtraFields() {
-        Category category = new Category(777L, "landscape");
-        String expectedUrl = "/images/landscape?session=id&id=777&count=1";
+    void pollShared_shouldAcceptJsonWithExtraFields() {
+        String expectedUrl = "/images/landscape?count=1";
         String jsonWithExtraFields = """
             {
                 "id": "landscape_123",
@@ -298,7 +350,7 @@ class ImageServiceTest {
         mockServer.expect(requestTo(expectedUrl))
             .andRespond(withSuccess(jsonWithExtraFields, MediaType.APPLICATION_JSON));
 
-        ImageDto result = imageService.pollNext(category);
+        ImageDto result = imageService.pollShared("landscape", 1).get(0);
 
         assertNotNull(result);
         assertEquals("landscape_123", result.externalId());
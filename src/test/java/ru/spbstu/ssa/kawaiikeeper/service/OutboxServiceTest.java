@@ -0,0 +1,251 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pengrad.telegrambot.model.request.InlineKeyboardButton;
+import com.pengrad.telegrambot.model.request.InlineKeyboardMarkup;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.SendMessage;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.spbstu.ssa.kawaiikeeper.config.SendingConfig;
+import ru.spbstu.ssa.kawaiikeeper.entity.OutboxMessage;
+import ru.spbstu.ssa.kawaiikeeper.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxServiceTest {
+
+    private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private final RequestSender requestSender = mock(RequestSender.class);
+    private final OutboxService outboxService = outboxService(new SendingConfig());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void enqueue_shouldPersistBeforeSendingAndAcknowledgeAfterwards() {
+        when(outboxRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List< OutboxMessage > messages = invocation.getArgument(0);
+            messages.forEach(message -> ReflectionTestUtils.setField(message, "id", 7L));
+            return messages;
+        });
+        when(requestSender.sendEach(anyList())).thenAnswer(OutboxServiceTest::deliverAll);
+        var keyboard = new InlineKeyboardMarkup(new InlineKeyboardButton("Next").callbackData("feed_next"));
+        var request = new SendMessage(123L, "hello").replyMarkup(keyboard);
+
+        outboxService.enqueue(123L, List.of(request));
+
+        ArgumentCaptor< List< OutboxMessage > > persisted = ArgumentCaptor.forClass(List.class);
+        verify(outboxRepository).saveAll(persisted.capture());
+        OutboxMessage message = persisted.getValue().get(0);
+        assertEquals(123L, message.getChatId());
+        assertEquals("sendMessage", message.getMethod());
+        assertTrue(message.getPayload().contains("\"text\":\"hello\""));
+        assertTrue(message.getPayload().contains("callback_data"));
+        verify(requestSender, timeout(1000)).sendEach(List.of(request));
+        verify(outboxRepository, timeout(1000)).deleteAllByIdInBatch(List.of(7L));
+    }
+
+    @Test
+    void enqueue_whenOutboxIsUnavailable_shouldStillSend() {
+        when(outboxRepository.saveAll(anyList())).thenThrow(new IllegalStateException("Database is down"));
+        when(requestSender.sendEach(anyList())).thenAnswer(OutboxServiceTest::deliverAll);
+        var request = new SendMessage(123L, "hello");
+
+        outboxService.enqueue(123L, List.of(request));
+
+        verify(requestSender, timeout(1000)).sendEach(List.of(request));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(anyList());
+    }
+
+    @Test
+    void enqueue_whenDeliveryFailsTransiently_shouldRetryAndAcknowledge() {
+        persistWithId(7L);
+        when(requestSender.sendEach(anyList())).thenReturn(
+            CompletableFuture.completedFuture(List.of(RequestSender.Delivery.RETRYABLE)),
+            CompletableFuture.completedFuture(List.of(RequestSender.Delivery.DELIVERED))
+        );
+        var request = new SendMessage(123L, "hello");
+
+        outboxServiceWithFastRetries(3).enqueue(123L, List.of(request));
+
+        verify(outboxRepository, timeout(1000)).deleteAllByIdInBatch(List.of(7L));
+        verify(requestSender, times(2)).sendEach(List.of(request));
+    }
+
+    @Test
+    void enqueue_whenRetriesAreExhausted_shouldDropRequest() {
+        persistWithId(7L);
+        when(requestSender.sendEach(anyList()))
+            .thenReturn(CompletableFuture.completedFuture(List.of(RequestSender.Delivery.RETRYABLE)));
+        var request = new SendMessage(123L, "hello");
+
+        outboxServiceWithFastRetries(2).enqueue(123L, List.of(request));
+
+        verify(outboxRepository, timeout(1000)).deleteAllByIdInBatch(List.of(7L));
+        verify(requestSender, times(2)).sendEach(List.of(request));
+    }
+
+    @Test
+    void enqueue_whenChatIsBackingOff_shouldKeepSendingOtherChats() {
+        persistWithId(7L);
+        when(requestSender.sendEach(anyList())).thenAnswer(invocation -> {
+            List< BaseRequest< ?, ? > > requests = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(requests.stream()
+                .map(request -> request.getParameters().get("chat_id").equals(1L)
+                    ? RequestSender.Delivery.RETRYABLE
+                    : RequestSender.Delivery.DELIVERED)
+                .toList());
+        });
+        SendingConfig sendingConfig = new SendingConfig();
+        sendingConfig.setOutboxWorkerCount(1);
+        sendingConfig.setOutboxBatchSize(1);
+        sendingConfig.setOutboxRetryBackoff(Duration.ofMinutes(1));
+        OutboxService service = outboxService(sendingConfig);
+        var failing = new SendMessage(1L, "first");
+        var queuedBehind = new SendMessage(1L, "second");
+        var other = new SendMessage(2L, "hello");
+
+        service.enqueue(1L, List.of(failing, queuedBehind));
+        service.enqueue(2L, List.of(other));
+
+        verify(requestSender, timeout(1000)).sendEach(List.of(other));
+        verify(requestSender, never()).sendEach(List.of(queuedBehind));
+        verify(requestSender, times(1)).sendEach(List.of(failing));
+    }
+
+    @Test
+    void enqueue_whenRequestIsRejected_shouldDropItWithoutRetrying() {
+        persistWithId(7L);
+        when(requestSender.sendEach(anyList()))
+            .thenReturn(CompletableFuture.completedFuture(List.of(RequestSender.Delivery.REJECTED)));
+        var request = new SendMessage(123L, "hello");
+
+        outboxServiceWithFastRetries(3).enqueue(123L, List.of(request));
+
+        verify(outboxRepository, timeout(1000)).deleteAllByIdInBatch(List.of(7L));
+        verify(requestSender, times(1)).sendEach(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void poll_shouldReplayClaimedRequestsInOrder() {
+        when(outboxRepository.claimExpired(anyString(), any(Instant.class), any(Instant.class), anyInt())).thenReturn(List.of(
+            stored(6L, "sendMessage", "{\"chat_id\":123,\"text\":\"second\"}", Instant.now()),
+            stored(5L, "sendMessage", "{\"chat_id\":123,\"text\":\"first\"}", Instant.now())
+        ));
+        when(requestSender.sendEach(anyList())).thenAnswer(OutboxServiceTest::deliverAll);
+
+        outboxService.poll();
+
+        verify(outboxRepository, timeout(1000)).deleteAllByIdInBatch(argThat(ids -> ((List< ? >) ids).contains(6L)));
+        ArgumentCaptor< List< BaseRequest< ?, ? > > > sent = ArgumentCaptor.forClass(List.class);
+        verify(requestSender, atLeastOnce()).sendEach(sent.capture());
+        List< BaseRequest< ?, ? > > replayed = sent.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(List.of("first", "second"), replayed.stream().map(request -> request.getParameters().get("text")).toList());
+        assertEquals("sendMessage", replayed.get(0).getMethod());
+        assertEquals(123, replayed.get(0).getParameters().get("chat_id"));
+    }
+
+    @Test
+    void poll_shouldRenewLeasesOfQueuedRequestsInsteadOfQueueingThemTwice() {
+        persistWithId(7L);
+        when(requestSender.sendEach(anyList()))
+            .thenReturn(CompletableFuture.completedFuture(List.of(RequestSender.Delivery.RETRYABLE)));
+        SendingConfig sendingConfig = new SendingConfig();
+        sendingConfig.setOutboxRetryBackoff(Duration.ofMinutes(1));
+        OutboxService service = outboxService(sendingConfig);
+        var request = new SendMessage(123L, "hello");
+        service.enqueue(123L, List.of(request));
+        verify(requestSender, timeout(1000)).sendEach(List.of(request));
+        when(outboxRepository.claimExpired(anyString(), any(Instant.class), any(Instant.class), anyInt())).thenReturn(List.of(
+            stored(7L, "sendMessage", "{\"chat_id\":123,\"text\":\"hello\"}", Instant.now())
+        ));
+
+        service.poll();
+
+        verify(outboxRepository).renewLeases(anyString(), eq(List.of(7L)), any(Instant.class));
+        verify(requestSender, after(100).times(1)).sendEach(anyList());
+    }
+
+    @Test
+    void poll_shouldDropRequestsOlderThanMaxAge() {
+        Instant before = Instant.now();
+
+        outboxService.poll();
+
+        ArgumentCaptor< Instant > createdBefore = ArgumentCaptor.forClass(Instant.class);
+        verify(outboxRepository).deleteExpired(createdBefore.capture(), any(Instant.class));
+        assertFalse(createdBefore.getValue().isAfter(before.minus(new SendingConfig().getOutboxMaxAge()).plusSeconds(1)));
+    }
+
+    @Test
+    void poll_shouldDropMalformedRequests() {
+        when(outboxRepository.claimExpired(anyString(), any(Instant.class), any(Instant.class), anyInt())).thenReturn(List.of(
+            stored(5L, "sendMessage", "not json", Instant.now())
+        ));
+
+        outboxService.poll();
+
+        verify(outboxRepository).deleteById(5L);
+        verifyNoInteractions(requestSender);
+    }
+
+    @Test
+    void poll_shouldDropExpiredCallbackAnswers() {
+        when(outboxRepository.claimExpired(anyString(), any(Instant.class), any(Instant.class), anyInt())).thenReturn(List.of(
+            stored(5L, "answerCallbackQuery", "{\"callback_query_id\":\"42\"}", Instant.now().minusSeconds(60))
+        ));
+
+        outboxService.poll();
+
+        verify(outboxRepository).deleteById(5L);
+        verifyNoInteractions(requestSender);
+    }
+
+    @Test
+    void constructor_whenLeaseIsShorterThanTwoPolls_shouldFail() {
+        SendingConfig sendingConfig = new SendingConfig();
+        sendingConfig.setOutboxLeaseDuration(Duration.ofSeconds(15));
+
+        assertThrows(IllegalArgumentException.class, () -> outboxService(sendingConfig));
+    }
+
+    private OutboxService outboxService(SendingConfig sendingConfig) {
+        return new OutboxService(outboxRepository, requestSender, new ObjectMapper(), sendingConfig);
+    }
+
+    private OutboxService outboxServiceWithFastRetries(int maxAttempts) {
+        SendingConfig sendingConfig = new SendingConfig();
+        sendingConfig.setOutboxMaxAttempts(maxAttempts);
+        sendingConfig.setOutboxRetryBackoff(Duration.ofMillis(1));
+        return outboxService(sendingConfig);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void persistWithId(long id) {
+        when(outboxRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List< OutboxMessage > messages = invocation.getArgument(0);
+            messages.forEach(message -> ReflectionTestUtils.setField(message, "id", id));
+            return messages;
+        });
+    }
+
+    private static OutboxMessage stored(long id, String method, String payload, Instant createdAt) {
+        return new OutboxMessage(id, 123L, method, payload, createdAt, "other", Instant.now());
+    }
+
+    private static CompletableFuture< List< RequestSender.Delivery > > deliverAll(InvocationOnMock invocation) {
+        List< ? > requests = invocation.getArgument(0);
+        return CompletableFuture.completedFuture(Collections.nCopies(requests.size(), RequestSender.Delivery.DELIVERED));
+    }
+
+}
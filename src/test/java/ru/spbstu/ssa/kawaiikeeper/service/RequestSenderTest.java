@@ -0,0 +1,184 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.AnswerCallbackQuery;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.EditMessageCaption;
+import com.pengrad.telegrambot.request.EditMessageReplyMarkup;
+import com.pengrad.telegrambot.response.BaseResponse;
+import com.pengrad.telegrambot.response.ResponseParameters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.spbstu.ssa.kawaiikeeper.config.SendingConfig;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RequestSenderTest {
+
+    @Mock
+    private TelegramBot bot;
+
+    @Mock
+    private SendScheduler sendScheduler;
+
+    @Spy
+    private SendingConfig sendingConfig = new SendingConfig();
+
+    @Mock
+    private FileIdService fileIdService;
+
+    @Mock
+    private BaseResponse okResponse;
+
+    @InjectMocks
+    private RequestSender requestSender;
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void sendAll_withRequestsForSameMessage_shouldSendNextOnlyAfterPreviousCompleted() {
+        List< BaseRequest > executed = new ArrayList<>();
+        List< Callback > callbacks = new ArrayList<>();
+        doAnswer(invocation -> {
+            executed.add(invocation.getArgument(0));
+            callbacks.add(invocation.getArgument(1));
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+        when(sendScheduler.acquire(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(okResponse.isOk()).thenReturn(true);
+
+        var first = new EditMessageCaption(123L, 1).caption("first");
+        var second = new EditMessageReplyMarkup(123L, 1);
+        var independent = new AnswerCallbackQuery("callback_123");
+
+        CompletableFuture< Void > result = requestSender.sendAll(List.of(first, second, independent));
+
+        assertEquals(List.of(first, independent), executed);
+        assertFalse(result.isDone());
+
+        callbacks.get(0).onResponse(first, okResponse);
+        assertEquals(List.of(first, independent, second), executed);
+
+        callbacks.get(1).onResponse(independent, okResponse);
+        callbacks.get(2).onResponse(second, okResponse);
+        assertTrue(result.isDone());
+        assertEquals(0, requestSender.getFailedCount());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void sendAll_whenRequestFails_shouldCountFailureAndContinue() {
+        doAnswer(invocation -> {
+            BaseRequest request = invocation.getArgument(0);
+            Callback callback = invocation.getArgument(1);
+            if (request instanceof EditMessageCaption) {
+                callback.onFailure(request, new IOException("Network error"));
+            } else {
+                callback.onResponse(request, okResponse);
+            }
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+        when(sendScheduler.acquire(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(okResponse.isOk()).thenReturn(true);
+
+        CompletableFuture< Void > result = requestSender.sendAll(List.of(
+            new EditMessageCaption(123L, 1).caption("failing"),
+            new EditMessageReplyMarkup(123L, 1)
+        ));
+
+        assertTrue(result.isDone());
+        assertFalse(result.isCompletedExceptionally());
+        assertEquals(1, requestSender.getFailedCount());
+        verify(bot, times(2)).execute(any(BaseRequest.class), any(Callback.class));
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void sendEach_shouldReportDeliveryOfEachRequestInOrder() {
+        BaseResponse badRequest = mock(BaseResponse.class);
+        BaseResponse serverError = mock(BaseResponse.class);
+        when(badRequest.errorCode()).thenReturn(400);
+        when(serverError.errorCode()).thenReturn(502);
+        when(okResponse.isOk()).thenReturn(true);
+        doAnswer(invocation -> {
+            BaseRequest request = invocation.getArgument(0);
+            Callback callback = invocation.getArgument(1);
+            Object chatId = request.getParameters().get("chat_id");
+            if (chatId.equals(1L)) {
+                callback.onFailure(request, new IOException("Network error"));
+            } else {
+                callback.onResponse(request, chatId.equals(2L) ? badRequest : chatId.equals(3L) ? serverError : okResponse);
+            }
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+        when(sendScheduler.acquire(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        List< RequestSender.Delivery > deliveries = requestSender.sendEach(List.of(
+            new EditMessageReplyMarkup(1L, 1),
+            new EditMessageReplyMarkup(2L, 1),
+            new EditMessageReplyMarkup(3L, 1),
+            new EditMessageReplyMarkup(4L, 1)
+        )).join();
+
+        assertEquals(List.of(
+            RequestSender.Delivery.RETRYABLE,
+            RequestSender.Delivery.REJECTED,
+            RequestSender.Delivery.RETRYABLE,
+            RequestSender.Delivery.DELIVERED
+        ), deliveries);
+        assertEquals(3, requestSender.getFailedCount());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void sendAll_whenResponseIsNotOk_shouldCountFailure() {
+        doAnswer(invocation -> {
+            ((Callback) invocation.getArgument(1)).onResponse(invocation.getArgument(0), okResponse);
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+        when(sendScheduler.acquire(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(okResponse.isOk()).thenReturn(false);
+        when(okResponse.errorCode()).thenReturn(400);
+
+        requestSender.sendAll(List.of(new AnswerCallbackQuery("callback_123"))).join();
+
+        assertEquals(1, requestSender.getFailedCount());
+    }
+
+    @Test
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void sendAll_whenFloodLimited_shouldBackOffAndRetry() {
+        BaseResponse floodResponse = mock(BaseResponse.class);
+        ResponseParameters parameters = mock(ResponseParameters.class);
+        when(floodResponse.errorCode()).thenReturn(429);
+        when(floodResponse.parameters()).thenReturn(parameters);
+        when(parameters.retryAfter()).thenReturn(3);
+        when(okResponse.isOk()).thenReturn(true);
+        List< BaseResponse > responses = new ArrayList<>(List.of(floodResponse, okResponse));
+        doAnswer(invocation -> {
+            ((Callback) invocation.getArgument(1)).onResponse(invocation.getArgument(0), responses.remove(0));
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+        when(sendScheduler.acquire(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        requestSender.sendAll(List.of(new EditMessageReplyMarkup(123L, 1))).join();
+
+        verify(sendScheduler).backOff(eq(123L), eq(Duration.ofSeconds(3)));
+        verify(sendScheduler, times(2)).acquire(123L);
+        assertEquals(0, requestSender.getFailedCount());
+    }
+}
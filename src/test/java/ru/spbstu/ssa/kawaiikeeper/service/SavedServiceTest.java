@@ -4,18 +4,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
 import ru.spbstu.ssa.kawaiikeeper.dto.ImageDto;
-import ru.spbstu.ssa.kawaiikeeper.dto.SavedDto;
+import ru.spbstu.ssa.kawaiikeeper.dto.SavedPageDto;
 import ru.spbstu.ssa.kawaiikeeper.entity.Saved;
 import ru.spbstu.ssa.kawaiikeeper.repository.SavedRepository;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +30,12 @@ class SavedServiceTest {
     @Mock
     private ImageService imageService;
 
+    @Mock
+    private FileIdService fileIdService;
+
+    @Spy
+    private CacheConfig cacheConfig = new CacheConfig();
+
     @InjectMocks
     private SavedService savedService;
 
@@ -37,16 +46,56 @@ class SavedServiceTest {
         ImageDto imageDto = new ImageDto(externalId, "https://example.com/image.jpg", "cats");
 
         when(imageService.getByExternalId(externalId)).thenReturn(imageDto);
-        when(savedRepository.save(any(Saved.class))).thenAnswer(invocation -> {
-            Saved saved = invocation.getArgument(0);
-            saved.setId(1L);
-            return saved;
-        });
+        when(savedRepository.insertIfAbsent(eq(userId), eq(externalId), any(), any(), any(), any())).thenReturn(Optional.of(1L));
 
-        savedService.saveImage(userId, externalId);
+        SavedService.SaveResult result = savedService.saveImage(userId, externalId);
 
+        assertEquals(SavedService.SaveResult.SAVED, result);
         verify(imageService).getByExternalId(externalId);
-        verify(savedRepository).save(any(Saved.class));
+    }
+
+    @Test
+    void saveImage_whenAlreadyStored_shouldReportAlreadySaved() {
+        long userId = 123L;
+        ImageDto imageDto = new ImageDto("img_123", "https://example.com/image.jpg", "cats");
+
+        when(savedRepository.insertIfAbsent(eq(userId), eq("img_123"), any(), any(), any(), any())).thenReturn(Optional.empty());
+
+        assertEquals(SavedService.SaveResult.ALREADY_SAVED, savedService.saveImage(userId, imageDto));
+    }
+
+    @Test
+    void saveImage_repeatedTap_shouldSkipImageApiAndDatabase() {
+        long userId = 123L;
+        String externalId = "img_123";
+        ImageDto imageDto = new ImageDto(externalId, "https://example.com/image.jpg", "cats");
+
+        when(imageService.getByExternalId(externalId)).thenReturn(imageDto);
+        when(savedRepository.insertIfAbsent(eq(userId), eq(externalId), any(), any(), any(), any())).thenReturn(Optional.of(1L));
+
+        assertEquals(SavedService.SaveResult.SAVED, savedService.saveImage(userId, externalId));
+        assertEquals(SavedService.SaveResult.ALREADY_SAVED, savedService.saveImage(userId, externalId));
+
+        verify(imageService, times(1)).getByExternalId(externalId);
+        verify(savedRepository, times(1)).insertIfAbsent(anyLong(), anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    void saveImage_afterClear_shouldSaveAgain() {
+        long userId = 123L;
+        String externalId = "img_123";
+        ImageDto imageDto = new ImageDto(externalId, "https://example.com/image.jpg", "cats");
+
+        when(imageService.getByExternalId(externalId)).thenReturn(imageDto);
+        when(savedRepository.insertIfAbsent(eq(userId), eq(externalId), any(), any(), any(), any())).thenReturn(Optional.of(1L));
+        when(savedRepository.deleteChunkByUserId(userId, 1000)).thenReturn(1);
+
+        savedService.saveImage(userId, externalId);
+        savedService.clearImages(userId);
+        SavedService.SaveResult result = savedService.saveImage(userId, externalId);
+
+        assertEquals(SavedService.SaveResult.SAVED, result);
+        verify(imageService, times(2)).getByExternalId(externalId);
     }
 
     @Test
@@ -59,7 +108,7 @@ class SavedServiceTest {
         assertThrows(RuntimeException.class, () -> savedService.saveImage(userId, externalId));
 
         verify(imageService).getByExternalId(externalId);
-        verify(savedRepository, never()).save(any(Saved.class));
+        verify(savedRepository, never()).insertIfAbsent(anyLong(), anyString(), any(), any(), any(), any());
     }
 
     @Test
@@ -67,155 +116,160 @@ class SavedServiceTest {
         long userId = 123L;
         ImageDto imageDto = new ImageDto("img_456", "https://example.com/image2.jpg", "dogs");
 
-        when(savedRepository.save(any(Saved.class))).thenAnswer(invocation -> {
-            Saved saved = invocation.getArgument(0);
-            saved.setId(2L);
-            return saved;
-        });
+        when(savedRepository.insertIfAbsent(eq(userId), eq("img_456"), any(), any(), any(), any())).thenReturn(Optional.of(2L));
 
-        savedService.saveImage(userId, imageDto);
+        assertEquals(SavedService.SaveResult.SAVED, savedService.saveImage(userId, imageDto));
 
-        verify(savedRepository).save(any(Saved.class));
         verify(imageService, never()).getByExternalId(anyString());
     }
 
     @Test
-    void saveImage_withImageDto_shouldCreateCorrectSavedEntity() {
+    void saveImage_withImageDto_shouldInsertImageFields() {
         long userId = 456L;
         ImageDto imageDto = new ImageDto("ext_789", "https://example.com/photo.jpg", "nature");
 
         savedService.saveImage(userId, imageDto);
 
-        verify(savedRepository).save(argThat(saved ->
-            saved.getUserId() == userId &&
-                saved.getExternalId().equals(imageDto.externalId()) &&
-                saved.getImageUrl().equals(imageDto.imageUrl()) &&
-                saved.getCategoryName().equals(imageDto.categoryName()) &&
-                saved.getId() == null
-        ));
+        verify(savedRepository).insertIfAbsent(eq(userId), eq(imageDto.externalId()), eq(imageDto.imageUrl()),
+            eq(imageDto.categoryName()), any(Instant.class), isNull());
     }
 
     @Test
-    void findOrderedImages_shouldReturnOrderedList() {
+    void hasImages_whenImagesExist_shouldReturnTrue() {
         long userId = 123L;
-        Instant now = Instant.now();
 
-        List< Saved > savedEntities = List.of(
-            new Saved(1L, userId, "img1", "https://example.com/1.jpg", "cat1", now.minus(2, ChronoUnit.DAYS)),
-            new Saved(2L, userId, "img2", "https://example.com/2.jpg", "cat2", now.minus(1, ChronoUnit.DAYS)),
-            new Saved(3L, userId, "img3", "https://example.com/3.jpg", "cat3", now)
-        );
+        when(savedRepository.existsByUserId(userId)).thenReturn(true);
 
-        when(savedRepository.findByUserIdOrderByCreatedAtAsc(userId)).thenReturn(savedEntities);
+        boolean result = savedService.hasImages(userId);
 
-        List< SavedDto > result = savedService.findOrderedImages(userId);
+        assertTrue(result);
+        verify(savedRepository).existsByUserId(userId);
+    }
 
-        assertNotNull(result);
-        assertEquals(3, result.size());
+    @Test
+    void hasImages_whenNoImages_shouldReturnFalse() {
+        long userId = 123L;
 
-        assertEquals(1L, result.get(0).id());
-        assertEquals(2L, result.get(1).id());
-        assertEquals(3L, result.get(2).id());
+        when(savedRepository.existsByUserId(userId)).thenReturn(false);
 
-        SavedDto firstDto = result.get(0);
-        assertEquals(1L, firstDto.id());
-        assertEquals(userId, firstDto.userId());
-        assertEquals("img1", firstDto.externalId());
-        assertEquals("https://example.com/1.jpg", firstDto.imageUrl());
-        assertEquals("cat1", firstDto.categoryName());
-        assertEquals(now.minus(2, ChronoUnit.DAYS), firstDto.createdAt());
+        boolean result = savedService.hasImages(userId);
 
-        verify(savedRepository).findByUserIdOrderByCreatedAtAsc(userId);
+        assertFalse(result);
+        verify(savedRepository).existsByUserId(userId);
     }
 
     @Test
-    void findOrderedImages_whenNoImages_shouldReturnEmptyList() {
+    void removeImage_shouldDeleteOwnedSavedAndReturnNextPage() {
         long userId = 123L;
+        Instant createdAt = Instant.now();
+        Saved removed = new Saved(2L, userId, "img2", "https://example.com/2.jpg", "cat2", createdAt, null);
+        Saved next = new Saved(3L, userId, "img3", "https://example.com/3.jpg", "cat3", createdAt.plusSeconds(1), null);
 
-        when(savedRepository.findByUserIdOrderByCreatedAtAsc(userId)).thenReturn(List.of());
-
-        List< SavedDto > result = savedService.findOrderedImages(userId);
+        when(savedRepository.deleteReturning(2L, userId)).thenReturn(Optional.of(removed));
+        when(savedRepository.findNext(eq(userId), eq(createdAt), eq(2L), any())).thenReturn(List.of(next));
+        when(savedRepository.findPreviousIds(eq(userId), eq(next.getCreatedAt()), eq(3L), any())).thenReturn(List.of(1L));
+        when(savedRepository.findNextIds(eq(userId), eq(next.getCreatedAt()), eq(3L), any())).thenReturn(List.of());
 
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+        SavedPageDto page = savedService.removeImage(userId, 2L).orElseThrow();
 
-        verify(savedRepository).findByUserIdOrderByCreatedAtAsc(userId);
+        assertEquals(3L, page.saved().id());
+        assertEquals(1L, page.prevId());
+        assertNull(page.nextId());
+        verify(savedRepository).deleteReturning(2L, userId);
+        verify(savedRepository, never()).findByIdAndUserId(anyLong(), anyLong());
     }
 
     @Test
-    void hasImages_whenImagesExist_shouldReturnTrue() {
+    void removeImage_whenLastOfSeveral_shouldReturnPreviousPage() {
         long userId = 123L;
+        Instant createdAt = Instant.now();
+        Saved removed = new Saved(2L, userId, "img2", "https://example.com/2.jpg", "cat2", createdAt, null);
+        Saved previous = new Saved(1L, userId, "img1", "https://example.com/1.jpg", "cat1", createdAt.minusSeconds(1), null);
 
-        when(savedRepository.existsByUserId(userId)).thenReturn(true);
+        when(savedRepository.deleteReturning(2L, userId)).thenReturn(Optional.of(removed));
+        when(savedRepository.findNext(eq(userId), eq(createdAt), eq(2L), any())).thenReturn(List.of());
+        when(savedRepository.findPrevious(eq(userId), eq(createdAt), eq(2L), any())).thenReturn(List.of(previous));
 
-        boolean result = savedService.hasImages(userId);
+        SavedPageDto page = savedService.removeImage(userId, 2L).orElseThrow();
 
-        assertTrue(result);
-        verify(savedRepository).existsByUserId(userId);
+        assertEquals(1L, page.saved().id());
     }
 
     @Test
-    void hasImages_whenNoImages_shouldReturnFalse() {
+    void removeImage_whenLastImage_shouldReturnEmpty() {
         long userId = 123L;
+        Instant createdAt = Instant.now();
+        Saved removed = new Saved(1L, userId, "img1", "https://example.com/1.jpg", "cat1", createdAt, null);
 
-        when(savedRepository.existsByUserId(userId)).thenReturn(false);
+        when(savedRepository.deleteReturning(1L, userId)).thenReturn(Optional.of(removed));
 
-        boolean result = savedService.hasImages(userId);
-
-        assertFalse(result);
-        verify(savedRepository).existsByUserId(userId);
+        assertTrue(savedService.removeImage(userId, 1L).isEmpty());
     }
 
     @Test
-    void removeImage_shouldCallRepositoryDelete() {
-        long imageId = 456L;
+    void removeImage_whenSavedBelongsToAnotherUser_shouldNotDelete() {
+        long userId = 123L;
+
+        when(savedRepository.deleteReturning(2L, userId)).thenReturn(Optional.empty());
 
-        savedService.removeImage(imageId);
+        savedService.removeImage(userId, 2L);
 
-        verify(savedRepository).deleteById(imageId);
+        verify(savedRepository, never()).findNext(anyLong(), any(), anyLong(), any());
+        verify(savedRepository).findFirstByUserIdOrderByCreatedAtAscIdAsc(userId);
     }
 
     @Test
-    void clearImages_shouldCallRepositoryDeleteByUserId() {
+    void clearImages_shouldDeleteInChunksAndReturnRemovedCount() {
         long userId = 123L;
 
-        savedService.clearImages(userId);
+        when(savedRepository.deleteChunkByUserId(eq(userId), anyInt())).thenReturn(1000, 1000, 42);
+
+        long removed = savedService.clearImages(userId);
 
-        verify(savedRepository).deleteByUserId(userId);
+        assertEquals(2042L, removed);
+        verify(savedRepository, times(3)).deleteChunkByUserId(eq(userId), anyInt());
     }
 
     @Test
-    void findOrderedImages_shouldMapAllFieldsCorrectly() {
-        long userId = 999L;
+    void findPage_shouldReturnSavedWithNeighbourIds() {
+        long userId = 123L;
         Instant createdAt = Instant.now();
+        Saved saved = new Saved(2L, userId, "img2", "https://example.com/2.jpg", "cat2", createdAt, null);
 
-        Saved savedEntity = new Saved(99L, userId, "ext_999", "https://example.com/99.jpg", "test_cat", createdAt);
+        when(savedRepository.findByIdAndUserId(2L, userId)).thenReturn(Optional.of(saved));
+        when(savedRepository.findPreviousIds(eq(userId), eq(createdAt), eq(2L), any())).thenReturn(List.of(1L));
+        when(savedRepository.findNextIds(eq(userId), eq(createdAt), eq(2L), any())).thenReturn(List.of());
 
-        when(savedRepository.findByUserIdOrderByCreatedAtAsc(userId)).thenReturn(List.of(savedEntity));
+        SavedPageDto page = savedService.findPage(userId, 2L).orElseThrow();
 
-        List< SavedDto > result = savedService.findOrderedImages(userId);
+        assertEquals(2L, page.saved().id());
+        assertEquals(1L, page.prevId());
+        assertNull(page.nextId());
+    }
 
-        assertEquals(1, result.size());
-        SavedDto dto = result.get(0);
+    @Test
+    void findPage_whenSavedBelongsToAnotherUser_shouldReturnEmpty() {
+        when(savedRepository.findByIdAndUserId(2L, 123L)).thenReturn(Optional.empty());
 
-        assertEquals(99L, dto.id());
-        assertEquals(userId, dto.userId());
-        assertEquals("ext_999", dto.externalId());
-        assertEquals("https://example.com/99.jpg", dto.imageUrl());
-        assertEquals("test_cat", dto.categoryName());
-        assertEquals(createdAt, dto.createdAt());
+        assertTrue(savedService.findPage(123L, 2L).isEmpty());
+        verify(savedRepository, never()).findNextIds(anyLong(), any(), anyLong(), any());
     }
 
     @Test
-    void saveImage_shouldNotSetIdBeforeSaving() {
+    void findFirstPage_shouldStartFromOldestSaved() {
         long userId = 123L;
-        ImageDto imageDto = new ImageDto("test", "http://example.com/test.jpg", "test");
+        Instant createdAt = Instant.now();
+        Saved saved = new Saved(1L, userId, "img1", "https://example.com/1.jpg", "cat1", createdAt, null);
 
-        savedService.saveImage(userId, imageDto);
+        when(savedRepository.findFirstByUserIdOrderByCreatedAtAscIdAsc(userId)).thenReturn(Optional.of(saved));
+        when(savedRepository.findPreviousIds(eq(userId), eq(createdAt), eq(1L), any())).thenReturn(List.of());
+        when(savedRepository.findNextIds(eq(userId), eq(createdAt), eq(1L), any())).thenReturn(List.of(2L));
+
+        SavedPageDto page = savedService.findFirstPage(userId).orElseThrow();
 
-        verify(savedRepository).save(argThat(saved ->
-            saved.getId() == null // ID должен быть null перед сохранением в БД
-        ));
+        assertEquals(1L, page.saved().id());
+        assertNull(page.prevId());
+        assertEquals(2L, page.nextId());
     }
 
     @Test
@@ -228,11 +282,8 @@ class SavedServiceTest {
 
         savedService.saveImage(userId, externalId);
 
-        verify(savedRepository).save(argThat(saved ->
-            saved.getExternalId().equals(expectedImage.externalId()) &&
-                saved.getImageUrl().equals(expectedImage.imageUrl()) &&
-                saved.getCategoryName().equals(expectedImage.categoryName())
-        ));
+        verify(savedRepository).insertIfAbsent(eq(userId), eq(expectedImage.externalId()), eq(expectedImage.imageUrl()),
+            eq(expectedImage.categoryName()), any(Instant.class), any());
     }
 
     @Test
@@ -241,31 +292,22 @@ class SavedServiceTest {
         ImageDto imageDto = new ImageDto("img_123", "http://example.com/image.jpg", "cats");
 
         savedService.saveImage(userId, imageDto);
-        verify(savedRepository).save(any(Saved.class));
+        verify(savedRepository).insertIfAbsent(eq(userId), eq("img_123"), any(), any(), any(), any());
 
-        when(savedRepository.findByUserIdOrderByCreatedAtAsc(userId)).thenReturn(List.of());
-        List< SavedDto > result = savedService.findOrderedImages(userId);
-        assertNotNull(result);
+        when(savedRepository.findFirstByUserIdOrderByCreatedAtAscIdAsc(userId)).thenReturn(Optional.empty());
+        Optional< SavedPageDto > result = savedService.findFirstPage(userId);
 
         assertTrue(result.isEmpty());
     }
 
     @Test
-    void removeImage_withZeroId_shouldWork() {
-        long imageId = 0L;
-
-        savedService.removeImage(imageId);
-
-        verify(savedRepository).deleteById(0L);
-    }
-
-    @Test
-    void clearImages_withZeroUserId_shouldWork() {
+    void clearImages_whenCollectionIsEmpty_shouldIssueSingleDelete() {
         long userId = 0L;
 
-        savedService.clearImages(userId);
+        long removed = savedService.clearImages(userId);
 
-        verify(savedRepository).deleteByUserId(0L);
+        assertEquals(0L, removed);
+        verify(savedRepository).deleteChunkByUserId(eq(0L), anyInt());
     }
 
     @Test
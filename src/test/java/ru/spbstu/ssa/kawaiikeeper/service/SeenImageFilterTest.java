@@ -0,0 +1,118 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.spbstu.ssa.kawaiikeeper.config.CacheConfig;
+
+import java.nio.file.Path;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeenImageFilterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void mightContain_shouldReportAddedImagesPerUser() {
+        SeenImageFilter filter = new SeenImageFilter(configWithRotation(64));
+
+        filter.add(1L, "img_1");
+
+        assertTrue(filter.mightContain(1L, "img_1"));
+        assertFalse(filter.mightContain(1L, "img_2"));
+        assertFalse(filter.mightContain(2L, "img_1"));
+    }
+
+    @Test
+    void add_shouldReportWhetherImageIsNew() {
+        SeenImageFilter filter = new SeenImageFilter(configWithRotation(64));
+
+        assertTrue(filter.add(1L, "img_1"));
+        assertFalse(filter.add(1L, "img_1"));
+        assertTrue(filter.add(2L, "img_1"));
+    }
+
+    @Test
+    void mightContain_shouldSurviveReopeningTheFile() {
+        CacheConfig cacheConfig = configWithRotation(64);
+        new SeenImageFilter(cacheConfig).add(1L, "img_1");
+
+        SeenImageFilter reopened = new SeenImageFilter(cacheConfig);
+
+        assertTrue(reopened.mightContain(1L, "img_1"));
+    }
+
+    @Test
+    void mightContain_afterReopeningWithAnotherRotation_shouldStartEmpty() {
+        new SeenImageFilter(configWithRotation(64)).add(1L, "img_1");
+
+        SeenImageFilter reopened = new SeenImageFilter(configWithRotation(4));
+
+        assertFalse(reopened.mightContain(1L, "img_1"));
+    }
+
+    @Test
+    void add_withUsersSharingABucket_shouldKeepEachHistory() {
+        CacheConfig cacheConfig = configWithRotation(64);
+        cacheConfig.setSeenFilterUsers(4);
+        SeenImageFilter filter = new SeenImageFilter(cacheConfig);
+
+        for (long userId = 1; userId <= 4; userId++) {
+            filter.add(userId, "img_" + userId);
+        }
+
+        for (long userId = 1; userId <= 4; userId++) {
+            assertTrue(filter.mightContain(userId, "img_" + userId));
+        }
+        assertEquals(0, filter.getEvictionCount());
+    }
+
+    @Test
+    void add_whenBucketIsFull_shouldEvictOneUserAndCountIt() {
+        CacheConfig cacheConfig = configWithRotation(64);
+        cacheConfig.setSeenFilterUsers(4);
+        SeenImageFilter filter = new SeenImageFilter(cacheConfig);
+
+        for (long userId = 1; userId <= 5; userId++) {
+            filter.add(userId, "img_" + userId);
+        }
+
+        long remembered = LongStream.rangeClosed(1, 5).filter(userId -> filter.mightContain(userId, "img_" + userId)).count();
+        assertEquals(4, remembered);
+        assertTrue(filter.mightContain(5L, "img_5"));
+        assertEquals(1, filter.getEvictionCount());
+    }
+
+    @Test
+    void add_afterTwoRotations_shouldForgetOldestGeneration() {
+        SeenImageFilter filter = new SeenImageFilter(configWithRotation(4));
+
+        filter.add(1L, "old");
+        for (int i = 0; i < 8; i++) {
+            filter.add(1L, "img_" + i);
+        }
+
+        assertFalse(filter.mightContain(1L, "old"));
+        assertTrue(filter.mightContain(1L, "img_7"));
+    }
+
+    @Test
+    void falsePositiveRate_shouldStayLowForDefaults() {
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.setSeenFilterPath(directory.resolve("defaults.bin").toString());
+        cacheConfig.setSeenFilterUsers(4);
+
+        assertTrue(new SeenImageFilter(cacheConfig).falsePositiveRate() < 0.01);
+    }
+
+    private CacheConfig configWithRotation(int rotation) {
+        CacheConfig cacheConfig = new CacheConfig();
+        cacheConfig.setSeenFilterPath(directory.resolve("seen.bin").toString());
+        cacheConfig.setSeenFilterUsers(8);
+        cacheConfig.setSeenFilterRotation(rotation);
+        return cacheConfig;
+    }
+
+}
@@ -0,0 +1,101 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.model.Chat;
+import com.pengrad.telegrambot.model.Message;
+import com.pengrad.telegrambot.model.Update;
+import org.junit.jupiter.api.Test;
+import ru.spbstu.ssa.kawaiikeeper.config.DispatchConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UpdateDispatcherTest {
+
+    @Test
+    void dispatch_shouldHandleAllUpdatesBeforeReturning() {
+        UpdateDispatcher dispatcher = new UpdateDispatcher(config(4));
+        List< Update > updates = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            updates.add(updateFrom(i));
+        }
+        List< Update > handled = Collections.synchronizedList(new ArrayList<>());
+
+        dispatcher.dispatch(updates, handled::add);
+
+        assertEquals(updates.size(), handled.size());
+        assertTrue(handled.containsAll(updates));
+    }
+
+    @Test
+    void dispatch_shouldKeepOrderWithinChat() {
+        UpdateDispatcher dispatcher = new UpdateDispatcher(config(4));
+        List< Update > updates = new ArrayList<>();
+        Map< Update, Long > chatOf = new ConcurrentHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            long chatId = i % 3;
+            Update update = updateFrom(chatId);
+            updates.add(update);
+            chatOf.put(update, chatId);
+        }
+        Map< Long, List< Update > > handledByChat = new ConcurrentHashMap<>();
+
+        dispatcher.dispatch(updates, update -> handledByChat
+            .computeIfAbsent(chatOf.get(update), id -> Collections.synchronizedList(new ArrayList<>()))
+            .add(update));
+
+        for (long chatId = 0; chatId < 3; chatId++) {
+            long expectedChatId = chatId;
+            List< Update > expected = updates.stream()
+                .filter(update -> chatOf.get(update) == expectedChatId)
+                .toList();
+            assertEquals(expected, handledByChat.get(chatId));
+        }
+    }
+
+    @Test
+    void dispatch_whenHandlerThrows_shouldHandleRemainingUpdates() {
+        UpdateDispatcher dispatcher = new UpdateDispatcher(config(1));
+        Update failing = updateFrom(1L);
+        Update succeeding = updateFrom(1L);
+        List< Update > handled = Collections.synchronizedList(new ArrayList<>());
+
+        assertDoesNotThrow(() -> dispatcher.dispatch(List.of(failing, succeeding), update -> {
+            if (update == failing) {
+                throw new RuntimeException("Handler error");
+            }
+            handled.add(update);
+        }));
+
+        assertEquals(List.of(succeeding), handled);
+    }
+
+    @Test
+    void chatIdOf_withMessage_shouldReturnMessageChatId() {
+        Update update = updateFrom(123L);
+
+        assertEquals(123L, UpdateDispatcher.chatIdOf(update));
+    }
+
+    private static DispatchConfig config(int workerCount) {
+        DispatchConfig config = new DispatchConfig();
+        config.setWorkerCount(workerCount);
+        return config;
+    }
+
+    private static Update updateFrom(long chatId) {
+        Update update = mock(Update.class);
+        Message message = mock(Message.class);
+        Chat chat = mock(Chat.class);
+        when(update.message()).thenReturn(message);
+        when(message.chat()).thenReturn(chat);
+        when(chat.id()).thenReturn(chatId);
+        return update;
+    }
+}
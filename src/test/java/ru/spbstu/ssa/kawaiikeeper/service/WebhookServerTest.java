@@ -0,0 +1,122 @@
+package ru.spbstu.ssa.kawaiikeeper.service;
+
+import com.pengrad.telegrambot.model.Update;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.spbstu.ssa.kawaiikeeper.config.DispatchConfig;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebhookServerTest {
+
+    private static final String SECRET = "test_secret";
+    private static final String RECORDED_UPDATE = """
+        {
+            "update_id": 10000,
+            "message": {
+                "message_id": 1,
+                "date": 1700000000,
+                "chat": { "id": 123, "type": "private" },
+                "from": { "id": 456, "is_bot": false, "first_name": "Test" },
+                "text": "/start"
+            }
+        }
+        """;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final List< Update > received = Collections.synchronizedList(new ArrayList<>());
+
+    private WebhookServer webhookServer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DispatchConfig config = new DispatchConfig();
+        config.setWebhookPort(0);
+        config.setWebhookSecret(SECRET);
+        webhookServer = new WebhookServer(config);
+        webhookServer.start(received::addAll);
+    }
+
+    @AfterEach
+    void tearDown() {
+        webhookServer.stop();
+    }
+
+    @Test
+    void post_withValidSecret_shouldParseAndDispatchUpdate() throws Exception {
+        HttpResponse< Void > response = post(RECORDED_UPDATE, SECRET);
+
+        assertEquals(200, response.statusCode());
+        assertEquals(1, received.size());
+        Update update = received.get(0);
+        assertEquals(10000, update.updateId());
+        assertEquals("/start", update.message().text());
+        assertEquals(123L, update.message().chat().id());
+        assertEquals(456L, update.message().from().id());
+    }
+
+    @Test
+    void post_withWrongSecret_shouldRejectUpdate() throws Exception {
+        HttpResponse< Void > response = post(RECORDED_UPDATE, "wrong_secret");
+
+        assertEquals(401, response.statusCode());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void post_withoutSecret_shouldRejectUpdate() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(endpoint())
+            .POST(HttpRequest.BodyPublishers.ofString(RECORDED_UPDATE))
+            .build();
+
+        HttpResponse< Void > response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(401, response.statusCode());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void post_withMalformedBody_shouldReturnBadRequest() throws Exception {
+        HttpResponse< Void > response = post("Invalid JSON", SECRET);
+
+        assertEquals(400, response.statusCode());
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    void get_shouldNotBeAllowed() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(endpoint()).GET().build();
+
+        HttpResponse< Void > response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(405, response.statusCode());
+    }
+
+    @Test
+    void start_withoutSecret_shouldThrow() {
+        WebhookServer unsecured = new WebhookServer(new DispatchConfig());
+
+        assertThrows(IllegalStateException.class, () -> unsecured.start(received::addAll));
+    }
+
+    private HttpResponse< Void > post(String body, String secret) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(endpoint())
+            .header(WebhookServer.SECRET_HEADER, secret)
+            .POST(HttpRequest.BodyPublishers.ofString(body))
+            .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    private URI endpoint() {
+        return URI.create("http://localhost:" + webhookServer.getPort() + "/telegram/webhook");
+    }
+}